@@ -0,0 +1,219 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.common.metrics;
+
+import com._1c.g5.v8.bm.core.IBmObject;
+import com.e1c.dt.check.internal.common.CheckExecutionEvent;
+import com.e1c.dt.check.internal.common.CheckMetricsService;
+import com.e1c.dt.check.internal.common.FlightRecorder;
+import com.e1c.g5.v8.dt.check.ICheckResultAcceptor;
+
+/**
+ * Single execution of the check being measured. Checks are measured by {@link MeasuredBasicCheck} and
+ * {@link MeasuredCheck}, other code may measure its executions directly:
+ * <pre>
+ * try (CheckExecution execution = CheckExecution.start(checkId))
+ * {
+ *     ...
+ *     execution.visited(1);
+ *     execution.issues(issueCount);
+ * }
+ * </pre>
+ * The execution is recorded to the statistics of the {@link ICheckMetricsService} when the metrics collection is
+ * enabled and is reported as the flight recorder event when a recording is running. Otherwise a shared no-op
+ * instance is used, so the measurement costs nothing.
+ * <p/>
+ * The execution is not thread-safe and must be used by the thread which has started it.
+ *
+ * @author Alexander Tretyakevich
+ */
+public class CheckExecution
+    implements AutoCloseable
+{
+    private static final CheckExecution NO_OP = new CheckExecution();
+
+    private CheckExecution()
+    {
+    }
+
+    /**
+     * Starts the measurement of the check execution.
+     *
+     * @param checkId the check identifier, cannot be {@code null}
+     * @return the started execution, never {@code null}
+     */
+    public static CheckExecution start(String checkId)
+    {
+        boolean recorded = CheckMetricsService.getInstance().isEnabled();
+        boolean traced = FlightRecorder.isCheckExecutionEnabled();
+        if (!recorded && !traced)
+        {
+            return NO_OP;
+        }
+        return traced ? new TracedCheckExecution(checkId, recorded) : new MeasuredCheckExecution(checkId);
+    }
+
+    /**
+     * Sets the identifier of the top object being checked.
+     *
+     * @param topObjectId the top object identifier
+     */
+    public void topObject(long topObjectId)
+    {
+        // Nothing to measure
+    }
+
+    /**
+     * Adds the number of objects visited by the check.
+     *
+     * @param count the number of visited objects
+     */
+    public void visited(long count)
+    {
+        // Nothing to measure
+    }
+
+    /**
+     * Adds the number of issues produced by the check.
+     *
+     * @param count the number of produced issues
+     */
+    public void issues(long count)
+    {
+        // Nothing to measure
+    }
+
+    /**
+     * Finishes the measurement and records it. Subsequent calls have no effect.
+     */
+    @Override
+    public void close()
+    {
+        // Nothing to measure
+    }
+
+    /*
+     * Accounts the checked object and returns the acceptor counting the issues reported for it
+     */
+    ICheckResultAcceptor measure(Object object, ICheckResultAcceptor resultAcceptor)
+    {
+        return resultAcceptor;
+    }
+
+    /*
+     * Execution recorded to the statistics of the metrics service
+     */
+    private static class MeasuredCheckExecution
+        extends CheckExecution
+    {
+        private final String checkId;
+
+        private final long startNanos = System.nanoTime();
+
+        private long visitedObjectCount;
+
+        private long issueCount;
+
+        private boolean closed;
+
+        MeasuredCheckExecution(String checkId)
+        {
+            this.checkId = checkId;
+        }
+
+        @Override
+        public void visited(long count)
+        {
+            visitedObjectCount += count;
+        }
+
+        @Override
+        public void issues(long count)
+        {
+            issueCount += count;
+        }
+
+        @Override
+        public void close()
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+            finish(checkId, visitedObjectCount, issueCount);
+        }
+
+        /*
+         * Records the finished execution
+         */
+        void finish(String checkId, long visitedObjects, long issues)
+        {
+            CheckMetricsService.getInstance().record(checkId, System.nanoTime() - startNanos, visitedObjects, issues);
+        }
+
+        @Override
+        ICheckResultAcceptor measure(Object object, ICheckResultAcceptor resultAcceptor)
+        {
+            visited(1);
+            if (object instanceof IBmObject && ((IBmObject)object).bmGetTopObject() != null)
+            {
+                topObject(((IBmObject)object).bmGetTopObject().bmGetId());
+            }
+            return new IssueCountingResultAcceptor(resultAcceptor, this);
+        }
+    }
+
+    /*
+     * Execution reported as the flight recorder event and optionally recorded to the statistics
+     */
+    private static final class TracedCheckExecution
+        extends MeasuredCheckExecution
+    {
+        private final CheckExecutionEvent event = new CheckExecutionEvent();
+
+        private final boolean recorded;
+
+        TracedCheckExecution(String checkId, boolean recorded)
+        {
+            super(checkId);
+            this.recorded = recorded;
+            event.topObjectId = -1;
+            event.begin();
+        }
+
+        @Override
+        public void topObject(long topObjectId)
+        {
+            event.topObjectId = topObjectId;
+        }
+
+        @Override
+        void finish(String checkId, long visitedObjects, long issues)
+        {
+            if (recorded)
+            {
+                super.finish(checkId, visitedObjects, issues);
+            }
+
+            event.end();
+            if (event.shouldCommit())
+            {
+                event.checkId = checkId;
+                event.visitedObjects = visitedObjects;
+                event.issues = issues;
+                event.commit();
+            }
+        }
+    }
+}
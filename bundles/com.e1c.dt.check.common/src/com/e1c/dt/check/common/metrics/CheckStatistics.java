@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.common.metrics;
+
+/**
+ * Immutable snapshot of the execution statistics of the single check.
+ * Latency percentiles are calculated over all executions of the check with the precision of 1/8 of the value.
+ *
+ * @author Alexander Tretyakevich
+ */
+public final class CheckStatistics
+{
+    private final String checkId;
+
+    private final long invocationCount;
+
+    private final long totalTimeNanos;
+
+    private final long p50TimeNanos;
+
+    private final long p99TimeNanos;
+
+    private final long visitedObjectCount;
+
+    private final long issueCount;
+
+    /**
+     * Creates new statistics snapshot.
+     *
+     * @param checkId the check identifier, cannot be {@code null}
+     * @param invocationCount the number of the check invocations
+     * @param totalTimeNanos the cumulative wall time of the invocations in nanoseconds
+     * @param p50TimeNanos the median wall time of the invocation in nanoseconds
+     * @param p99TimeNanos the 99th percentile of the wall time of the invocation in nanoseconds
+     * @param visitedObjectCount the number of objects visited by the check
+     * @param issueCount the number of issues produced by the check
+     */
+    public CheckStatistics(String checkId, long invocationCount, long totalTimeNanos, long p50TimeNanos,
+        long p99TimeNanos, long visitedObjectCount, long issueCount)
+    {
+        this.checkId = checkId;
+        this.invocationCount = invocationCount;
+        this.totalTimeNanos = totalTimeNanos;
+        this.p50TimeNanos = p50TimeNanos;
+        this.p99TimeNanos = p99TimeNanos;
+        this.visitedObjectCount = visitedObjectCount;
+        this.issueCount = issueCount;
+    }
+
+    /**
+     * Returns the check identifier.
+     *
+     * @return the check identifier, never {@code null}
+     */
+    public String getCheckId()
+    {
+        return checkId;
+    }
+
+    /**
+     * Returns the number of the check invocations.
+     *
+     * @return the number of the check invocations
+     */
+    public long getInvocationCount()
+    {
+        return invocationCount;
+    }
+
+    /**
+     * Returns the cumulative wall time of the check invocations.
+     *
+     * @return the cumulative wall time in nanoseconds
+     */
+    public long getTotalTimeNanos()
+    {
+        return totalTimeNanos;
+    }
+
+    /**
+     * Returns the median wall time of the check invocation.
+     *
+     * @return the median wall time in nanoseconds
+     */
+    public long getP50TimeNanos()
+    {
+        return p50TimeNanos;
+    }
+
+    /**
+     * Returns the 99th percentile of the wall time of the check invocation.
+     *
+     * @return the 99th percentile of the wall time in nanoseconds
+     */
+    public long getP99TimeNanos()
+    {
+        return p99TimeNanos;
+    }
+
+    /**
+     * Returns the number of objects visited by the check.
+     *
+     * @return the number of visited objects
+     */
+    public long getVisitedObjectCount()
+    {
+        return visitedObjectCount;
+    }
+
+    /**
+     * Returns the number of issues produced by the check.
+     *
+     * @return the number of issues
+     */
+    public long getIssueCount()
+    {
+        return issueCount;
+    }
+}
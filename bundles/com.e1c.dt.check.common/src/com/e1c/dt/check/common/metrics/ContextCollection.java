@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.common.metrics;
+
+import com.e1c.dt.check.internal.common.ContextCollectionEvent;
+import com.e1c.dt.check.internal.common.FlightRecorder;
+
+/**
+ * Single call of the check context collector being traced. The call is reported as the flight recorder event, so
+ * a recording shows which collectors schedule which checks. When no recording is running a shared no-op instance
+ * is used, so tracing of the collectors called for every BM sub-event costs nothing. Typical usage in the collector:
+ * <pre>
+ * try (ContextCollection collection = ContextCollection.start(CHECK_ID, getClass()))
+ * {
+ *     ...
+ *     collection.scheduled(1);
+ * }
+ * </pre>
+ * The collection is not thread-safe and must be used by the thread which has started it.
+ *
+ * @author Alexander Tretyakevich
+ */
+public class ContextCollection
+    implements AutoCloseable
+{
+    private static final ContextCollection NO_OP = new ContextCollection();
+
+    private ContextCollection()
+    {
+    }
+
+    /**
+     * Starts tracing of the context collector call.
+     *
+     * @param checkId the identifier of the check owning the collector, cannot be {@code null}
+     * @param collector the class of the collector, cannot be {@code null}
+     * @return the started collection, never {@code null}
+     */
+    public static ContextCollection start(String checkId, Class<?> collector)
+    {
+        if (!FlightRecorder.isContextCollectionEnabled())
+        {
+            return NO_OP;
+        }
+        return new RecordedContextCollection(checkId, collector.getSimpleName());
+    }
+
+    /**
+     * Sets the identifier of the top object the collector has been called for.
+     *
+     * @param topObjectId the top object identifier
+     */
+    public void topObject(long topObjectId)
+    {
+        // Nothing to trace
+    }
+
+    /**
+     * Adds the number of objects visited by the collector.
+     *
+     * @param count the number of visited objects
+     */
+    public void visited(long count)
+    {
+        // Nothing to trace
+    }
+
+    /**
+     * Adds the number of checks scheduled by the collector.
+     *
+     * @param count the number of scheduled checks
+     */
+    public void scheduled(long count)
+    {
+        // Nothing to trace
+    }
+
+    /**
+     * Finishes tracing of the collector call. Subsequent calls have no effect.
+     */
+    @Override
+    public void close()
+    {
+        // Nothing to trace
+    }
+
+    /*
+     * Collection traced by the flight recorder event
+     */
+    private static final class RecordedContextCollection
+        extends ContextCollection
+    {
+        private final ContextCollectionEvent event = new ContextCollectionEvent();
+
+        private boolean closed;
+
+        RecordedContextCollection(String checkId, String collector)
+        {
+            event.checkId = checkId;
+            event.collector = collector;
+            event.topObjectId = -1;
+            event.begin();
+        }
+
+        @Override
+        public void topObject(long topObjectId)
+        {
+            event.topObjectId = topObjectId;
+        }
+
+        @Override
+        public void visited(long count)
+        {
+            event.visitedObjects += count;
+        }
+
+        @Override
+        public void scheduled(long count)
+        {
+            event.scheduledChecks += count;
+        }
+
+        @Override
+        public void close()
+        {
+            if (closed)
+            {
+                return;
+            }
+            closed = true;
+            event.end();
+            if (event.shouldCommit())
+            {
+                event.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.common.metrics;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+
+/**
+ * Service providing execution statistics of the checks. Checks report their executions using
+ * {@link CheckExecution#start(String)}, the service aggregates them per check identifier. The collection is disabled
+ * by default and is enabled by the {@code com.e1c.dt.check.metrics.enabled} or
+ * {@code com.e1c.dt.check.metrics.dumpFile} system property.
+ * <p/>
+ * The service is registered as an OSGi service.
+ *
+ * @author Alexander Tretyakevich
+ */
+public interface ICheckMetricsService
+{
+    /**
+     * Returns statistics of all checks executed since the start or the last {@link #reset()}.
+     *
+     * @return the statistics ordered by the check identifier, never {@code null}
+     */
+    Collection<CheckStatistics> getStatistics();
+
+    /**
+     * Returns statistics of the specified check.
+     *
+     * @param checkId the check identifier, cannot be {@code null}
+     * @return the statistics of the check or {@code null} if the check has not been executed yet
+     */
+    CheckStatistics getStatistics(String checkId);
+
+    /**
+     * Clears all collected statistics.
+     */
+    void reset();
+
+    /**
+     * Writes all collected statistics to the specified file as tab separated values, one line per check.
+     * The existing file is overwritten.
+     *
+     * @param file the file to write to, cannot be {@code null}
+     * @throws IOException if the file cannot be written
+     */
+    void dump(Path file) throws IOException;
+}
@@ -0,0 +1,43 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.common.metrics;
+
+import com.e1c.g5.v8.dt.check.EIssue;
+import com.e1c.g5.v8.dt.check.ICheckResultAcceptor;
+
+/**
+ * Result acceptor which forwards issues to the decorated acceptor and accounts every reported issue in the check
+ * execution.
+ *
+ * @author Alexander Tretyakevich
+ */
+final class IssueCountingResultAcceptor
+    implements ICheckResultAcceptor
+{
+    private final ICheckResultAcceptor resultAcceptor;
+
+    private final CheckExecution execution;
+
+    IssueCountingResultAcceptor(ICheckResultAcceptor resultAcceptor, CheckExecution execution)
+    {
+        this.resultAcceptor = resultAcceptor;
+        this.execution = execution;
+    }
+
+    @Override
+    public void addIssue(Object object, EIssue issue)
+    {
+        resultAcceptor.addIssue(object, issue);
+        execution.issues(1);
+    }
+}
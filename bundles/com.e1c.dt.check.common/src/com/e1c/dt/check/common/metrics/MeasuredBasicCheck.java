@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.common.metrics;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import com.e1c.g5.v8.dt.check.ICheckParameters;
+import com.e1c.g5.v8.dt.check.ICheckResultAcceptor;
+import com.e1c.g5.v8.dt.check.components.BasicCheck;
+
+/**
+ * Basic check whose executions are measured by the {@link CheckExecution}: every checked object is accounted as
+ * visited and every issue reported by the check is counted.
+ *
+ * @author Alexander Tretyakevich
+ */
+public abstract class MeasuredBasicCheck
+    extends BasicCheck
+{
+    @Override
+    public void check(Object object, ICheckResultAcceptor resultAcceptor, ICheckParameters parameters,
+        IProgressMonitor monitor)
+    {
+        try (CheckExecution execution = CheckExecution.start(getCheckId()))
+        {
+            super.check(object, execution.measure(object, resultAcceptor), parameters, monitor);
+        }
+    }
+}
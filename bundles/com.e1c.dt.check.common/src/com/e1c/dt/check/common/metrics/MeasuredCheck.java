@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.common.metrics;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import com.e1c.g5.v8.dt.check.ICheck;
+import com.e1c.g5.v8.dt.check.ICheckParameters;
+import com.e1c.g5.v8.dt.check.ICheckResultAcceptor;
+
+/**
+ * Check whose executions are measured by the {@link CheckExecution}: every checked object is accounted as visited
+ * and every issue reported by the check is counted. Implementors check objects in
+ * {@link #doCheck(Object, ICheckResultAcceptor, ICheckParameters, IProgressMonitor)}.
+ *
+ * @author Alexander Tretyakevich
+ */
+public abstract class MeasuredCheck
+    implements ICheck
+{
+    @Override
+    public final void check(Object object, ICheckResultAcceptor resultAcceptor, ICheckParameters parameters,
+        IProgressMonitor monitor)
+    {
+        try (CheckExecution execution = CheckExecution.start(getCheckId()))
+        {
+            doCheck(object, execution.measure(object, resultAcceptor), parameters, monitor);
+        }
+    }
+
+    /**
+     * Checks the object.
+     *
+     * @param object the object to check, cannot be {@code null}
+     * @param resultAcceptor the acceptor of the found issues, cannot be {@code null}
+     * @param parameters the check parameters, cannot be {@code null}
+     * @param monitor the progress monitor, cannot be {@code null}
+     */
+    protected abstract void doCheck(Object object, ICheckResultAcceptor resultAcceptor, ICheckParameters parameters,
+        IProgressMonitor monitor);
+}
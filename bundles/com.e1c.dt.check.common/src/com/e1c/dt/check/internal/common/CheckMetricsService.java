@@ -0,0 +1,265 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.internal.common;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.e1c.dt.check.common.metrics.CheckStatistics;
+import com.e1c.dt.check.common.metrics.ICheckMetricsService;
+
+/**
+ * Implementation of the {@link ICheckMetricsService}. Statistics are aggregated in memory per check identifier,
+ * latency percentiles are calculated over all executions of the check using the histogram with logarithmic buckets.
+ * Executions are recorded only if the metrics collection is enabled, see {@link #isEnabled()}.
+ *
+ * @author Alexander Tretyakevich
+ */
+public final class CheckMetricsService
+    implements ICheckMetricsService
+{
+    private static final CheckMetricsService INSTANCE = new CheckMetricsService();
+
+    /**
+     * Number of the latency histogram buckets per power of two, the percentiles are precise within 1/8 of the value.
+     */
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private static final String DUMP_HEADER =
+        "checkId\tinvocations\ttotalMs\tp50Ms\tp99Ms\tvisitedObjects\tissues"; //$NON-NLS-1$
+
+    private final Map<String, CheckRecord> records = new ConcurrentHashMap<>();
+
+    private final boolean enabled = isEnabledByProperties();
+
+    private CheckMetricsService()
+    {
+    }
+
+    /**
+     * Returns the shared instance of the service.
+     *
+     * @return the shared instance, never {@code null}
+     */
+    public static CheckMetricsService getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Checks if the metrics collection is enabled. The collection is enabled by the
+     * {@value CorePlugin#METRICS_ENABLED_PROPERTY} or {@value CorePlugin#METRICS_DUMP_FILE_PROPERTY} system property.
+     *
+     * @return {@code true} if the executions of the checks are recorded
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Records the single execution of the check. Has no effect if the metrics collection is disabled.
+     *
+     * @param checkId the check identifier, cannot be {@code null}
+     * @param timeNanos the wall time of the execution in nanoseconds
+     * @param visitedObjectCount the number of objects visited by the execution
+     * @param issueCount the number of issues produced by the execution
+     */
+    public void record(String checkId, long timeNanos, long visitedObjectCount, long issueCount)
+    {
+        if (!enabled)
+        {
+            return;
+        }
+
+        CheckRecord record = records.get(checkId);
+        if (record == null)
+        {
+            record = records.computeIfAbsent(checkId, CheckRecord::new);
+        }
+        record.record(timeNanos, visitedObjectCount, issueCount);
+    }
+
+    @Override
+    public Collection<CheckStatistics> getStatistics()
+    {
+        List<CheckStatistics> statistics = new ArrayList<>(records.size());
+        for (CheckRecord record : records.values())
+        {
+            statistics.add(record.toStatistics());
+        }
+        statistics.sort(Comparator.comparing(CheckStatistics::getCheckId));
+        return statistics;
+    }
+
+    @Override
+    public CheckStatistics getStatistics(String checkId)
+    {
+        CheckRecord record = records.get(checkId);
+        return record == null ? null : record.toStatistics();
+    }
+
+    @Override
+    public void reset()
+    {
+        records.clear();
+    }
+
+    @Override
+    public void dump(Path file) throws IOException
+    {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8))
+        {
+            writer.write(DUMP_HEADER);
+            writer.newLine();
+            for (CheckStatistics statistics : getStatistics())
+            {
+                writer.write(statistics.getCheckId());
+                writer.write('\t');
+                writer.write(Long.toString(statistics.getInvocationCount()));
+                writer.write('\t');
+                writer.write(toMillis(statistics.getTotalTimeNanos()));
+                writer.write('\t');
+                writer.write(toMillis(statistics.getP50TimeNanos()));
+                writer.write('\t');
+                writer.write(toMillis(statistics.getP99TimeNanos()));
+                writer.write('\t');
+                writer.write(Long.toString(statistics.getVisitedObjectCount()));
+                writer.write('\t');
+                writer.write(Long.toString(statistics.getIssueCount()));
+                writer.newLine();
+            }
+        }
+    }
+
+    private static boolean isEnabledByProperties()
+    {
+        String dumpFile = System.getProperty(CorePlugin.METRICS_DUMP_FILE_PROPERTY);
+        return Boolean.getBoolean(CorePlugin.METRICS_ENABLED_PROPERTY) || dumpFile != null && !dumpFile.isBlank();
+    }
+
+    private static String toMillis(long nanos)
+    {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000d); //$NON-NLS-1$
+    }
+
+    /*
+     * Aggregated statistics of the single check. Executions are recorded without locking, so the snapshot taken
+     * while the check is running may be slightly inconsistent
+     */
+    private static final class CheckRecord
+    {
+        private final String checkId;
+
+        private final AtomicLongArray latencies = new AtomicLongArray(BUCKET_COUNT);
+
+        private final LongAdder invocationCount = new LongAdder();
+
+        private final LongAdder totalTimeNanos = new LongAdder();
+
+        private final LongAdder visitedObjectCount = new LongAdder();
+
+        private final LongAdder issueCount = new LongAdder();
+
+        CheckRecord(String checkId)
+        {
+            this.checkId = checkId;
+        }
+
+        void record(long timeNanos, long visitedObjects, long issues)
+        {
+            latencies.incrementAndGet(toBucket(Math.max(timeNanos, 0)));
+            invocationCount.increment();
+            totalTimeNanos.add(timeNanos);
+            visitedObjectCount.add(visitedObjects);
+            issueCount.add(issues);
+        }
+
+        CheckStatistics toStatistics()
+        {
+            long[] counts = new long[BUCKET_COUNT];
+            long total = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++)
+            {
+                counts[i] = latencies.get(i);
+                total += counts[i];
+            }
+            return new CheckStatistics(checkId, invocationCount.sum(), totalTimeNanos.sum(),
+                percentile(counts, total, 50), percentile(counts, total, 99), visitedObjectCount.sum(),
+                issueCount.sum());
+        }
+
+        /*
+         * Returns the upper bound of the bucket containing the percentile
+         */
+        private static long percentile(long[] counts, long total, int percent)
+        {
+            if (total == 0)
+            {
+                return 0;
+            }
+            long rank = Math.max((long)Math.ceil(total * percent / 100d), 1);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++)
+            {
+                seen += counts[i];
+                if (seen >= rank)
+                {
+                    return toUpperBound(i);
+                }
+            }
+            return toUpperBound(counts.length - 1);
+        }
+
+        /*
+         * Values below SUB_BUCKET_COUNT have own buckets, greater values share the bucket with values having the same
+         * highest bit and the same SUB_BUCKET_BITS bits following it
+         */
+        private static int toBucket(long value)
+        {
+            if (value < SUB_BUCKET_COUNT)
+            {
+                return (int)value;
+            }
+            int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            return (shift + 1) * SUB_BUCKET_COUNT + (int)(value >>> shift) - SUB_BUCKET_COUNT;
+        }
+
+        private static long toUpperBound(int bucket)
+        {
+            if (bucket < SUB_BUCKET_COUNT)
+            {
+                return bucket;
+            }
+            int shift = bucket / SUB_BUCKET_COUNT - 1;
+            long lowerBound = (long)(SUB_BUCKET_COUNT + bucket % SUB_BUCKET_COUNT) << shift;
+            return lowerBound + (1L << shift) - 1;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.internal.common;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of the single call of the check context collector.
+ *
+ * @author Alexander Tretyakevich
+ */
+@Name("com.e1c.dt.check.ContextCollection")
+@Label("Check Context Collection")
+@Category({ "1C:EDT", "Checks" })
+@Description("Collection of the check context on the single model event")
+public final class ContextCollectionEvent
+    extends Event
+{
+    @Label("Check Id")
+    public String checkId;
+
+    @Label("Collector")
+    public String collector;
+
+    @Label("Top Object Id")
+    public long topObjectId;
+
+    @Label("Visited Objects")
+    public long visitedObjects;
+
+    @Label("Scheduled Checks")
+    public long scheduledChecks;
+}
@@ -0,0 +1,138 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.internal.common;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Plugin;
+import org.eclipse.core.runtime.Status;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
+
+import com.e1c.dt.check.common.metrics.ICheckMetricsService;
+
+/**
+ * Plugin activator. The activator class controls the plugin life cycle.
+ *
+ * @author Alexander Tretyakevich
+ */
+public class CorePlugin
+    extends Plugin
+{
+    public static final String PLUGIN_ID = "com.e1c.dt.check.common"; //$NON-NLS-1$
+
+    /**
+     * System property enabling the collection of the check statistics, the collection is disabled by default.
+     */
+    public static final String METRICS_ENABLED_PROPERTY = "com.e1c.dt.check.metrics.enabled"; //$NON-NLS-1$
+
+    /**
+     * System property with the path of the file to dump the check statistics to on the plugin stop.
+     * Setting the property enables the collection of the check statistics as well.
+     */
+    public static final String METRICS_DUMP_FILE_PROPERTY = "com.e1c.dt.check.metrics.dumpFile"; //$NON-NLS-1$
+
+    private static CorePlugin plugin;
+
+    private ServiceRegistration<ICheckMetricsService> metricsServiceRegistration;
+
+    /**
+     * Returns the shared instance
+     *
+     * @return the shared instance
+     */
+    public static CorePlugin getDefault()
+    {
+        return plugin;
+    }
+
+    /**
+     * Writes a status to the plugin log.
+     *
+     * @param status status to log, cannot be <code>null</code>
+     */
+    public static void log(IStatus status)
+    {
+        getDefault().getLog().log(status);
+    }
+
+    /**
+     * Writes a throwable to the plugin log as error status.
+     *
+     * @param throwable throwable, cannot be <code>null</code>
+     */
+    public static void logError(Throwable throwable)
+    {
+        log(createErrorStatus(throwable.getMessage(), throwable));
+    }
+
+    /**
+     * Creates error status by a given message and cause throwable.
+     *
+     * @param message status message, cannot be <code>null</code>
+     * @param throwable throwable, can be <code>null</code> if not applicable
+     * @return status created error status, never <code>null</code>
+     */
+    public static IStatus createErrorStatus(String message, Throwable throwable)
+    {
+        return new Status(IStatus.ERROR, PLUGIN_ID, 0, message, throwable);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.osgi.framework.BundleActivator#start(org.osgi.framework.BundleContext)
+     */
+    @Override
+    public void start(BundleContext bundleContext) throws Exception
+    {
+        super.start(bundleContext);
+
+        plugin = this;
+
+        metricsServiceRegistration = bundleContext.registerService(ICheckMetricsService.class,
+            CheckMetricsService.getInstance(), null);
+    }
+
+    /*
+     * (non-Javadoc)
+     * @see org.osgi.framework.BundleActivator#stop(org.osgi.framework.BundleContext)
+     */
+    @Override
+    public void stop(BundleContext bundleContext) throws Exception
+    {
+        if (metricsServiceRegistration != null)
+        {
+            metricsServiceRegistration.unregister();
+            metricsServiceRegistration = null;
+        }
+
+        String dumpFile = System.getProperty(METRICS_DUMP_FILE_PROPERTY);
+        if (dumpFile != null && !dumpFile.isBlank())
+        {
+            try
+            {
+                CheckMetricsService.getInstance().dump(Path.of(dumpFile));
+            }
+            catch (IOException e)
+            {
+                logError(e);
+            }
+        }
+
+        plugin = null;
+
+        super.stop(bundleContext);
+    }
+}
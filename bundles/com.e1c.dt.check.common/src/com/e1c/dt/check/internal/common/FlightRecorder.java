@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.internal.common;
+
+import jdk.jfr.EventType;
+
+/**
+ * Access to the flight recorder events of the checks. The {@code jdk.jfr} package is imported optionally, so the
+ * events are reported only when the package is available to the bundle. Event classes are never loaded otherwise.
+ *
+ * @author Alexander Tretyakevich
+ */
+public final class FlightRecorder
+{
+    private static final boolean AVAILABLE = isAvailable();
+
+    private FlightRecorder()
+    {
+    }
+
+    /**
+     * Checks if the check execution events are being recorded.
+     *
+     * @return {@code true} if the events are being recorded
+     */
+    public static boolean isCheckExecutionEnabled()
+    {
+        return AVAILABLE && EventTypes.CHECK_EXECUTION.isEnabled();
+    }
+
+    /**
+     * Checks if the context collection events are being recorded.
+     *
+     * @return {@code true} if the events are being recorded
+     */
+    public static boolean isContextCollectionEnabled()
+    {
+        return AVAILABLE && EventTypes.CONTEXT_COLLECTION.isEnabled();
+    }
+
+    private static boolean isAvailable()
+    {
+        try
+        {
+            Class.forName("jdk.jfr.EventType", false, FlightRecorder.class.getClassLoader()); //$NON-NLS-1$
+            return true;
+        }
+        catch (ClassNotFoundException | LinkageError e)
+        {
+            return false;
+        }
+    }
+
+    /*
+     * Event types, initialized only if the flight recorder is available
+     */
+    private static final class EventTypes
+    {
+        static final EventType CHECK_EXECUTION = EventType.getEventType(CheckExecutionEvent.class);
+
+        static final EventType CONTEXT_COLLECTION = EventType.getEventType(ContextCollectionEvent.class);
+    }
+}
@@ -18,14 +18,21 @@ import static com._1c.g5.v8.dt.form.model.FormPackage.Literals.ABSTRACT_DATA_PAT
 import static com._1c.g5.v8.dt.form.model.FormPackage.Literals.ABSTRACT_DATA_PATH__SEGMENTS;
 import static com._1c.g5.v8.dt.form.model.FormPackage.Literals.FORM;
 
+import java.lang.ref.WeakReference;
 import java.text.MessageFormat;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EReference;
 
+import com._1c.g5.v8.bm.core.IBmEngine;
+import com._1c.g5.v8.bm.core.IBmObject;
+import com._1c.g5.v8.bm.core.IBmTransaction;
 import com._1c.g5.v8.dt.common.Functions;
 import com._1c.g5.v8.dt.form.model.AbstractDataPath;
 import com._1c.g5.v8.dt.form.model.DataPathReferredObject;
@@ -33,25 +40,48 @@ import com._1c.g5.v8.dt.form.model.Form;
 import com._1c.g5.v8.dt.form.model.MultiLanguageDataPath;
 import com._1c.g5.v8.dt.form.model.PropertyInfo;
 import com._1c.g5.v8.dt.form.service.datasourceinfo.IDataSourceInfoAssociationService;
+import com.e1c.dt.check.common.metrics.MeasuredBasicCheck;
 import com.e1c.g5.v8.dt.check.CheckComplexity;
 import com.e1c.g5.v8.dt.check.ICheckParameters;
-import com.e1c.g5.v8.dt.check.components.BasicCheck;
 import com.e1c.g5.v8.dt.check.settings.IssueSeverity;
 import com.e1c.g5.v8.dt.check.settings.IssueType;
 import com.google.inject.Inject;
 
 /**
  * Checks that each segment of {@link Form} item data-path has referred object.
+ * <p/>
+ * Data paths of a form often share prefixes, so results of
+ * {@link IDataSourceInfoAssociationService#findPropertyInfo(Form, AbstractDataPath)} are memoized by segment prefix:
+ * a resolved path means that all its prefixes are resolvable, while an unresolved path means that no path starting
+ * with it can be resolved. Each thread keeps the results for the form it checks within the current transaction only,
+ * so they are dropped as soon as the thread checks another form or runs in another transaction. Results are shared
+ * only between data paths with the same resolution context, that is the same container, the same containing feature
+ * and the same extra paths.
  *
  * @author Dmitriy Marmyshev
  */
 public class DataPathReferredObjectCheck
-    extends BasicCheck
+    extends MeasuredBasicCheck
 {
     private static final String CHECK_ID = "form-data-path"; //$NON-NLS-1$
 
+    /**
+     * Maximum number of segments whose coverage is tracked by a single {@code long} mask.
+     */
+    private static final int MASK_SEGMENTS = Long.SIZE;
+
+    /**
+     * Maximum number of resolution contexts memoized for a single form.
+     */
+    private static final int MAX_MEMOIZED_CONTEXTS = 1024;
+
     private final IDataSourceInfoAssociationService dataSourceInfoAssociationService;
 
+    /**
+     * Memoized resolution of prefixes of data paths of the form checked by the current thread.
+     */
+    private final ThreadLocal<ResolutionMemo> resolutionMemo = ThreadLocal.withInitial(ResolutionMemo::new);
+
     /**
      * Instantiates a new instance of check of data path referred object check.
      *
@@ -92,56 +122,182 @@ public class DataPathReferredObjectCheck
         {
             return;
         }
-
         AbstractDataPath dataPath = (AbstractDataPath)object;
-        if (dataPath.getSegments().isEmpty())
+        String message = findIssue(dataPath, monitor);
+        if (message != null)
         {
-            return;
+            resultAceptor.addIssue(message, ABSTRACT_DATA_PATH__SEGMENTS);
+        }
+    }
+
+    /*
+     * Checks the data path and returns the description of the found issue or null if there is no issue
+     */
+    private String findIssue(AbstractDataPath dataPath, IProgressMonitor monitor)
+    {
+        List<String> segments = dataPath.getSegments();
+        if (segments.isEmpty())
+        {
+            return null;
+        }
+
+        int unresolvedSegment = segments.size() <= MASK_SEGMENTS
+            ? getFirstUnresolvedSegmentByMask(dataPath, segments.size(), monitor)
+            : getFirstUnresolvedSegmentByBitSet(dataPath, segments.size(), monitor);
+        if (unresolvedSegment == -1 || monitor.isCanceled() || isResolvable(dataPath))
+        {
+            return null;
         }
 
-        Set<Integer> foundSegmentObjects = new HashSet<>();
-        for (DataPathReferredObject refObject : dataPath.getObjects())
+        String propertyName = getCotainingPropertyPresentation(dataPath);
+        return MessageFormat.format(Messages.DataPathReferredObjectCheck_message, propertyName,
+            String.join(".", segments), unresolvedSegment + 1, segments.get(unresolvedSegment)); //$NON-NLS-1$
+    }
+
+    /*
+     * Returns the index of the first segment without referred object or -1 if all segments are resolved,
+     * tracking resolved segments by a mask for paths of up to 64 segments
+     */
+    private int getFirstUnresolvedSegmentByMask(AbstractDataPath dataPath, int segmentCount, IProgressMonitor monitor)
+    {
+        long allResolved = segmentCount == MASK_SEGMENTS ? -1L : (1L << segmentCount) - 1;
+        long resolved = 0;
+        List<DataPathReferredObject> refObjects = dataPath.getObjects();
+        for (int i = 0, size = refObjects.size(); i < size; i++)
         {
             if (monitor.isCanceled())
             {
-                return;
+                return -1;
             }
+            DataPathReferredObject refObject = refObjects.get(i);
             int segmentIndex = refObject.getSegmentIdx();
-            if (segmentIndex > -1 && refObject.getObject() != null)
+            if (segmentIndex > -1 && segmentIndex < segmentCount && refObject.getObject() != null)
             {
-                foundSegmentObjects.add(segmentIndex);
+                resolved |= 1L << segmentIndex;
+                if (resolved == allResolved)
+                {
+                    return -1;
+                }
             }
         }
+        return Long.numberOfTrailingZeros(~resolved);
+    }
 
-        if (monitor.isCanceled() || dataPath.getSegments().size() == foundSegmentObjects.size())
+    /*
+     * Returns the index of the first segment without referred object or -1 if all segments are resolved,
+     * tracking resolved segments by a bit set for paths longer than 64 segments
+     */
+    private int getFirstUnresolvedSegmentByBitSet(AbstractDataPath dataPath, int segmentCount,
+        IProgressMonitor monitor)
+    {
+        BitSet resolved = new BitSet(segmentCount);
+        List<DataPathReferredObject> refObjects = dataPath.getObjects();
+        for (int i = 0, size = refObjects.size(); i < size; i++)
         {
-            return;
+            if (monitor.isCanceled())
+            {
+                return -1;
+            }
+            DataPathReferredObject refObject = refObjects.get(i);
+            int segmentIndex = refObject.getSegmentIdx();
+            if (segmentIndex > -1 && segmentIndex < segmentCount && refObject.getObject() != null)
+            {
+                resolved.set(segmentIndex);
+            }
         }
+        int unresolvedSegment = resolved.nextClearBit(0);
+        return unresolvedSegment < segmentCount ? unresolvedSegment : -1;
+    }
 
+    /*
+     * Checks if the data path can be resolved to a property info reusing results memoized for prefixes of paths
+     * of the same resolution context
+     */
+    private boolean isResolvable(AbstractDataPath dataPath)
+    {
         Form form = (Form)dataPath.bmGetTopObject();
-        PropertyInfo found = dataSourceInfoAssociationService.findPropertyInfo(form, dataPath);
-        if (found != null)
+        IBmEngine engine = form.bmGetEngine();
+        IBmTransaction transaction = engine == null ? null : engine.getCurrentTransaction();
+        if (transaction == null)
         {
-            return;
+            // The model may change between invocations, so nothing is memoized
+            return dataSourceInfoAssociationService.findPropertyInfo(form, dataPath) != null;
         }
+        Map<String, Boolean> resolvedPrefixes =
+            resolutionMemo.get().getResolvedPrefixes(transaction, form.bmGetId(), getResolutionContext(dataPath));
 
-        for (int i = 0; i < dataPath.getSegments().size(); i++)
+        List<String> segments = dataPath.getSegments();
+        String[] prefixes = new String[segments.size()];
+        StringBuilder prefix = new StringBuilder();
+        for (int i = 0; i < prefixes.length; i++)
         {
-            if (monitor.isCanceled())
+            if (i > 0)
             {
-                return;
+                prefix.append('.');
             }
-            String segment = dataPath.getSegments().get(i);
-            if (!foundSegmentObjects.contains(i))
+            prefixes[i] = prefix.append(segments.get(i)).toString();
+            if (Boolean.FALSE.equals(resolvedPrefixes.get(prefixes[i])))
             {
-                String propertyName = getCotainingPropertyPresentation(dataPath);
-                String message = MessageFormat.format(Messages.DataPathReferredObjectCheck_message, propertyName,
-                    String.join(".", dataPath.getSegments()), i + 1, segment); //$NON-NLS-1$
+                // No path can be resolved beyond an unresolvable prefix
+                return false;
+            }
+        }
 
-                resultAceptor.addIssue(message, ABSTRACT_DATA_PATH__SEGMENTS);
-                return;
+        String path = prefixes[prefixes.length - 1];
+        Boolean resolved = resolvedPrefixes.get(path);
+        if (resolved != null)
+        {
+            return resolved;
+        }
+
+        PropertyInfo found = dataSourceInfoAssociationService.findPropertyInfo(form, dataPath);
+        if (found == null)
+        {
+            resolvedPrefixes.put(path, Boolean.FALSE);
+            return false;
+        }
+        for (String resolvedPrefix : prefixes)
+        {
+            resolvedPrefixes.put(resolvedPrefix, Boolean.TRUE);
+        }
+        return true;
+    }
+
+    /*
+     * Returns the key of the context the data path is resolved in: the identity of its container, the containing
+     * feature and its extra paths
+     */
+    private static String getResolutionContext(AbstractDataPath dataPath)
+    {
+        StringBuilder context = new StringBuilder();
+        EObject container = dataPath.eContainer();
+        if (container instanceof IBmObject)
+        {
+            context.append(((IBmObject)container).bmGetId());
+        }
+        else if (container != null)
+        {
+            context.append('@').append(System.identityHashCode(container));
+        }
+        EReference feature = dataPath.eContainmentFeature();
+        context.append('#').append(feature == null ? "" : feature.getName()); //$NON-NLS-1$
+        Object extraPaths = dataPath.eGet(ABSTRACT_DATA_PATH__EXTRA_PATHS);
+        if (extraPaths instanceof Collection)
+        {
+            for (Object extraPath : (Collection<?>)extraPaths)
+            {
+                context.append('|');
+                if (extraPath instanceof AbstractDataPath)
+                {
+                    context.append(String.join(".", ((AbstractDataPath)extraPath).getSegments())); //$NON-NLS-1$
+                }
+                else
+                {
+                    context.append(extraPath);
+                }
             }
         }
+        return context.toString();
     }
 
     private String getCotainingPropertyPresentation(AbstractDataPath dataPath)
@@ -162,4 +318,42 @@ public class DataPathReferredObjectCheck
             return Messages.DataPathReferredObjectCheck_Data_path;
         }
     }
+
+    /**
+     * Resolution of prefixes of data paths memoized for a single form within a single transaction.
+     * Neither the form nor the transaction is strongly referenced, so the memo does not keep them loaded.
+     */
+    private static final class ResolutionMemo
+    {
+        private WeakReference<IBmTransaction> transaction = new WeakReference<>(null);
+
+        private long formId;
+
+        private final Map<String, Map<String, Boolean>> resolvedPrefixesByContext = new HashMap<>();
+
+        /**
+         * Returns memoized resolution of prefixes of data paths of the resolution context. Results memoized for
+         * another form or another transaction are dropped.
+         *
+         * @param bmTransaction Current transaction. Must not be {@code null}.
+         * @param bmFormId BM identifier of the form of the data path.
+         * @param context Key of the resolution context of the data path. Must not be {@code null}.
+         * @return Mutable map of prefixes to their resolvability. Never {@code null}.
+         */
+        Map<String, Boolean> getResolvedPrefixes(IBmTransaction bmTransaction, long bmFormId, String context)
+        {
+            if (transaction.get() != bmTransaction || formId != bmFormId)
+            {
+                transaction = new WeakReference<>(bmTransaction);
+                formId = bmFormId;
+                resolvedPrefixesByContext.clear();
+            }
+            else if (resolvedPrefixesByContext.size() >= MAX_MEMOIZED_CONTEXTS
+                && !resolvedPrefixesByContext.containsKey(context))
+            {
+                resolvedPrefixesByContext.clear();
+            }
+            return resolvedPrefixesByContext.computeIfAbsent(context, key -> new HashMap<>());
+        }
+    }
 }
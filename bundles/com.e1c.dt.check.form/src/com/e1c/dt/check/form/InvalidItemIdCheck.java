@@ -13,10 +13,10 @@
 package com.e1c.dt.check.form;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -36,11 +36,15 @@ import com._1c.g5.v8.dt.form.model.Form;
 import com._1c.g5.v8.dt.form.model.FormItem;
 import com._1c.g5.v8.dt.form.model.FormPackage;
 import com._1c.g5.v8.dt.form.service.FormIdentifierService;
-import com._1c.g5.v8.dt.form.service.item.FormItemIterator;
+import com.e1c.dt.check.common.metrics.MeasuredBasicCheck;
+import com.e1c.dt.check.common.metrics.ContextCollection;
+import com.e1c.dt.check.internal.form.FormItemIdIndex;
+import com.e1c.dt.check.internal.form.FormItemIdValidator;
+import com.e1c.dt.check.internal.form.FormItemIdValidator.Result;
+import com.e1c.dt.check.internal.form.IntHashSet;
 import com.e1c.g5.v8.dt.check.CheckComplexity;
 import com.e1c.g5.v8.dt.check.ICheckDefinition;
 import com.e1c.g5.v8.dt.check.ICheckParameters;
-import com.e1c.g5.v8.dt.check.components.BasicCheck;
 import com.e1c.g5.v8.dt.check.components.IBasicCheckExtension;
 import com.e1c.g5.v8.dt.check.components.TopObjectFilterExtension;
 import com.e1c.g5.v8.dt.check.context.CheckContextCollectingSession;
@@ -76,6 +80,9 @@ import com.google.inject.Inject;
  * because duplicates might have gone away. For example, first object with the same id (which did not have markers)
  * might have been deleted and we need to cleanup markers on a second object that has those markers.
  * For this purpose implementation uses {@link AdditionalRevalidationRules} extension to specify extra rules.
+ * To avoid walking the whole form after every change of a single identifier, the check keeps
+ * {@link FormItemIdIndex} of identifiers of validated forms. An identifier change that touches only unique and valid
+ * identifiers can not change the markers, so the form is not re-validated in this case.
  * <p/>
  * This check will put a marker for each {@link FormItem} as target object with a
  * description of the issue (regardless of how deep it is nested)
@@ -84,7 +91,7 @@ import com.google.inject.Inject;
  * @author Nikolay Martynov
  */
 public class InvalidItemIdCheck
-    extends BasicCheck
+    extends MeasuredBasicCheck
 {
 
     /**
@@ -93,9 +100,14 @@ public class InvalidItemIdCheck
     public static final String CHECK_ID = "form-invalid-item-id"; //$NON-NLS-1$
 
     /**
-     * Service that is used to generate new identifiers for broken form items.
+     * Validator of form item identifiers.
      */
-    private final FormIdentifierService formIdentifierService;
+    private final FormItemIdValidator validator;
+
+    /**
+     * Index of identifiers of validated forms.
+     */
+    private final FormItemIdIndex index = new FormItemIdIndex();
 
     /**
      * Creates new instnce.
@@ -105,7 +117,7 @@ public class InvalidItemIdCheck
     @Inject
     public InvalidItemIdCheck(FormIdentifierService formIdentifierService)
     {
-        this.formIdentifierService = formIdentifierService;
+        this.validator = new FormItemIdValidator(formIdentifierService);
     }
 
     @Override
@@ -119,7 +131,7 @@ public class InvalidItemIdCheck
     {
         configurationBuilder.extension(new SkipBaseFormExtension())
             .extension(new TopObjectFilterExtension())
-            .extension(new AdditionalRevalidationRules())
+            .extension(new AdditionalRevalidationRules(validator, index))
             .title(Messages.InvalidItemIdCheck_title)
             .description(Messages.InvalidItemIdCheck_description)
             .complexity(CheckComplexity.NORMAL)
@@ -146,7 +158,11 @@ public class InvalidItemIdCheck
             return;
         }
         Form form = (Form)object;
-        for (Entry<FormItem, String> itemAndMesage : validate(form).entrySet())
+        long stamp = index.beginValidation(form);
+        IntHashSet ids = new IntHashSet();
+        Result result = validator.validate(form, ids);
+        index.endValidation(form, stamp, ids, result);
+        for (Entry<FormItem, String> itemAndMesage : toIssues(result).entrySet())
         {
             resultAcceptor.addIssue(itemAndMesage.getValue(), itemAndMesage.getKey(),
                 FormPackage.Literals.FORM_ITEM__ID);
@@ -169,41 +185,47 @@ public class InvalidItemIdCheck
     }
 
     /**
-     * Validates specified form.
+     * Schedules the check of the parent form of the given object.
+     *
+     * @param bmObject Object for which to schedule the check of the parent form. Must not be {@code null}.
+     * @param contextSession Context collecting session. Must not be {@code null}.
+     * @return Number of scheduled checks, {@code 0} if there is no parent form.
+     */
+    private static int scheduleCheckOf(IBmObject bmObject, CheckContextCollectingSession contextSession)
+    {
+        Optional<Form> form = findFormOf(bmObject);
+        form.ifPresent(contextSession::addModelCheck);
+        return form.isPresent() ? 1 : 0;
+    }
+
+    /**
+     * Describes issues found by the validation of a form.
      *
-     * @param form Form to validate. May be {@code null}.
+     * @param result Result of the validation. Must not be {@code null}.
      * @return A map where keys are form items with issues and values describe those issues.
      * If a form item is missing among the keys then it means that this form item has no issues.
      * The result should not contain {@code null} keys or values.
      * Only form items with issues should be among the keys.
      * An empty map means no issues with any of the form items.
-     * Also, result will be an empty map if {@code form} is {@code null}.
      * The result must never be {@code null}.
      */
-    private Map<FormItem, String> validate(Form form)
+    private static Map<FormItem, String> toIssues(Result result)
     {
-        if (form == null)
+        if (result.isValid())
         {
             return Collections.emptyMap();
         }
         Map<FormItem, String> itemsWithIssues = new HashMap<>();
-        Set<Integer> seenIdentifiers = new HashSet<>();
-        FormItemIterator itemIterator = new FormItemIterator(form);
-        while (itemIterator.hasNext())
+        for (int i = 0; i < result.size(); i++)
         {
-            FormItem item = itemIterator.next();
-            if (!formIdentifierService.hasValidId(item))
+            if (result.isDuplicate(i))
             {
-                itemsWithIssues.put(item, Messages.InvalidItemIdCheck_InvalidValueOfIdAttribute);
+                itemsWithIssues.put(result.getItem(i),
+                    MessageFormat.format(Messages.InvalidItemIdCheck_DuplicateValueOfIdAttribute, result.getId(i)));
             }
             else
             {
-                int itemId = item.getId();
-                if (!seenIdentifiers.add(itemId))
-                {
-                    itemsWithIssues.put(item,
-                        MessageFormat.format(Messages.InvalidItemIdCheck_DuplicateValueOfIdAttribute, itemId));
-                }
+                itemsWithIssues.put(result.getItem(i), Messages.InvalidItemIdCheck_InvalidValueOfIdAttribute);
             }
         }
         return itemsWithIssues;
@@ -256,6 +278,22 @@ public class InvalidItemIdCheck
             // @formatter:on
         );
 
+        private final FormItemIdValidator validator;
+
+        private final FormItemIdIndex index;
+
+        /**
+         * Creates new instance.
+         *
+         * @param validator Validator of form item identifiers. Must not be {@code null}.
+         * @param index Index of identifiers of validated forms. Must not be {@code null}.
+         */
+        AdditionalRevalidationRules(FormItemIdValidator validator, FormItemIdIndex index)
+        {
+            this.validator = validator;
+            this.index = index;
+        }
+
         @Override
         public void configureContextCollector(ICheckDefinition definition)
         {
@@ -269,14 +307,14 @@ public class InvalidItemIdCheck
             // should be removed from check().
             definition.addCheckedModelObjects(FormPackage.Literals.FORM, true, CONTAINER_CLASSES);
             //
-            definition.addModelFeatureChangeContextCollector(new OnItemIdChangeTriggerFormValidation(),
+            definition.addModelFeatureChangeContextCollector(new OnItemIdChangeTriggerFormValidation(validator, index),
                 FormPackage.Literals.FORM_ITEM);
             // We use here separate instances to assign each one a distinct label for tracing and debug purposes.
             // If G5V8DT-22389 is fixed in a way that
             // each instance of the collector is called only once per-event
             // then additional optimisation should be done here:
             // Single instance should be created outside of loop and registered for all classes.
-            OnModelFeatureChangeContextCollector onDelete = new OnItemRemovalTriggerFormValidation();
+            OnModelFeatureChangeContextCollector onDelete = new OnItemRemovalTriggerFormValidation(index);
             CONTAINER_CLASSES
                 .forEach(containerClass -> definition.addModelFeatureChangeContextCollector(onDelete, containerClass));
         }
@@ -291,10 +329,29 @@ public class InvalidItemIdCheck
      *
      * We'll try to be super safe and trigger form re-validation only if it was a form item whose id has
      * changed and old value is not the same as new value.
+     *
+     * Re-validation is not triggered when {@link FormItemIdIndex} confirms that only unique valid identifiers
+     * are involved, since markers can not change then.
      */
     private static class OnItemIdChangeTriggerFormValidation
         implements OnModelFeatureChangeContextCollector
     {
+        private final FormItemIdValidator validator;
+
+        private final FormItemIdIndex index;
+
+        /**
+         * Creates new instance.
+         *
+         * @param validator Validator of form item identifiers. Must not be {@code null}.
+         * @param index Index of identifiers of validated forms. Must not be {@code null}.
+         */
+        OnItemIdChangeTriggerFormValidation(FormItemIdValidator validator, FormItemIdIndex index)
+        {
+            this.validator = validator;
+            this.index = index;
+        }
+
         @Override
         public void collectContextOnFeatureChange(IBmObject bmObject, EStructuralFeature feature, BmSubEvent bmEvent,
             CheckContextCollectingSession contextSession)
@@ -303,18 +360,54 @@ public class InvalidItemIdCheck
                 && bmObject instanceof FormItem && bmEvent instanceof BmChangeEvent;
             if (formItemIdHasChanged)
             {
-                BmChangeEvent changeEvent = (BmChangeEvent)bmEvent;
-                for (Notification notification : changeEvent.getNotifications(FormPackage.Literals.FORM_ITEM__ID))
+                try (ContextCollection collection = ContextCollection.start(CHECK_ID, getClass()))
                 {
-                    boolean valueChanged = !Objects.equals(notification.getOldValue(), notification.getNewValue());
-                    if (valueChanged)
+                    collection.topObject(bmObject.bmGetTopObject().bmGetId());
+                    BmChangeEvent changeEvent = (BmChangeEvent)bmEvent;
+                    List<Notification> notifications =
+                        changeEvent.getNotifications(FormPackage.Literals.FORM_ITEM__ID);
+                    for (Notification notification : notifications)
                     {
-                        findFormOf(bmObject).ifPresent(contextSession::addModelCheck);
-                        break;
+                        collection.visited(1);
+                        boolean valueChanged =
+                            !Objects.equals(notification.getOldValue(), notification.getNewValue());
+                        if (valueChanged)
+                        {
+                            if (!isAppliedToIndex(bmObject, notification, notifications.size()))
+                            {
+                                collection.scheduled(scheduleCheckOf(bmObject, contextSession));
+                            }
+                            break;
+                        }
                     }
                 }
             }
         }
+
+        /**
+         * Applies identifier change to the index of the parent form of the given item.
+         *
+         * @param bmObject Form item whose identifier has changed. Must not be {@code null}.
+         * @param notification Notification about the change. Must not be {@code null}.
+         * @param notificationCount Number of identifier changes of the item in the event.
+         * @return {@code true} if the change can not affect the result of the validation of the form.
+         */
+        private boolean isAppliedToIndex(IBmObject bmObject, Notification notification, int notificationCount)
+        {
+            Optional<Form> form = findFormOf(bmObject);
+            if (!form.isPresent())
+            {
+                return false;
+            }
+            if (notificationCount != 1)
+            {
+                // Intermediate identifiers can not be verified, so just forget the form
+                index.invalidate(form.get());
+                return false;
+            }
+            return index.changeId(form.get(), notification.getOldIntValue(), notification.getNewIntValue(),
+                validator.hasValidId((FormItem)bmObject));
+        }
     }
 
     /**
@@ -336,10 +429,26 @@ public class InvalidItemIdCheck
      * <li>{@link com._1c.g5.v8.dt.form.model.SelectedItemsActionsPanelHolder#getSelectedItemsActionsPanel()}
      * <li>and so on
      * </ul>
+     * Re-validation is not triggered when {@link FormItemIdIndex} confirms that all removed items including their
+     * nested items had unique valid identifiers. Markers of the remaining items can not change in this case while
+     * markers of removed items are cleaned up by the generic mechanism. Whenever identifiers known to the index
+     * do not match the version stamp of the form, e.g. while the form is being validated, re-validation of the whole
+     * form is triggered.
      */
     private static class OnItemRemovalTriggerFormValidation
         implements OnModelFeatureChangeContextCollector
     {
+        private final FormItemIdIndex index;
+
+        /**
+         * Creates new instance.
+         *
+         * @param index Index of identifiers of validated forms. Must not be {@code null}.
+         */
+        OnItemRemovalTriggerFormValidation(FormItemIdIndex index)
+        {
+            this.index = index;
+        }
 
         @Override
         public void collectContextOnFeatureChange(IBmObject bmObject, EStructuralFeature feature, BmSubEvent bmEvent,
@@ -349,20 +458,58 @@ public class InvalidItemIdCheck
             {
                 return;
             }
-            BmChangeEvent changeEvent = (BmChangeEvent)bmEvent;
-            for (List<Notification> notifications : changeEvent.getNotifications().values())
+            try (ContextCollection collection = ContextCollection.start(CHECK_ID, getClass()))
             {
-                for (Notification notification : notifications)
+                collection.topObject(bmObject.bmGetTopObject().bmGetId());
+                BmChangeEvent changeEvent = (BmChangeEvent)bmEvent;
+                List<FormItem> removedItems = new ArrayList<>();
+                for (List<Notification> notifications : changeEvent.getNotifications().values())
                 {
-                    if (isOneFormItemRemoved(notification) || isManyFormItemsRemoved(notification))
+                    for (Notification notification : notifications)
                     {
-                        findFormOf(bmObject).ifPresent(contextSession::addModelCheck);
-                        return;
+                        collection.visited(1);
+                        if (isOneFormItemRemoved(notification))
+                        {
+                            removedItems.add((FormItem)notification.getOldValue());
+                        }
+                        else if (isManyFormItemsRemoved(notification))
+                        {
+                            for (Object removedObject : (Collection<?>)notification.getOldValue())
+                            {
+                                if (removedObject instanceof FormItem)
+                                {
+                                    removedItems.add((FormItem)removedObject);
+                                }
+                            }
+                        }
+                        else if (isFormItemAdded(notification))
+                        {
+                            // Added items are validated by the form check itself, the index just can not follow them
+                            findFormOf(bmObject).ifPresent(index::invalidate);
+                        }
                     }
                 }
+                if (!removedItems.isEmpty() && !isAppliedToIndex(bmObject, removedItems))
+                {
+                    collection.scheduled(scheduleCheckOf(bmObject, contextSession));
+                }
             }
         }
 
+        /**
+         * Applies removal of form items to the index of the parent form of the given object.
+         *
+         * @param bmObject Object from which the items have been removed. Must not be {@code null}.
+         * @param removedItems Removed form items. Must not be {@code null}.
+         * @return {@code true} if no duplicate group is affected by the removal and the form
+         * does not need to be validated again.
+         */
+        private boolean isAppliedToIndex(IBmObject bmObject, List<FormItem> removedItems)
+        {
+            Optional<Form> form = findFormOf(bmObject);
+            return form.isPresent() && index.removeItems(form.get(), removedItems);
+        }
+
         /**
          * Checks if notification indicates that one form item has been removed.
          *
@@ -397,6 +544,33 @@ public class InvalidItemIdCheck
             }
             return false;
         }
+
+        /**
+         * Checks if notification indicates that form items have been added or replaced.
+         *
+         * @param notification Notification to check. Must not be {@code null}.
+         * @return {@code true} if a form item is among the added values or has been set or unset as a value.
+         */
+        private boolean isFormItemAdded(Notification notification)
+        {
+            int eventType = notification.getEventType();
+            if (eventType == Notification.ADD || eventType == Notification.SET)
+            {
+                return notification.getNewValue() instanceof FormItem || notification.getOldValue() instanceof FormItem;
+            }
+            if (eventType != Notification.ADD_MANY || !(notification.getNewValue() instanceof Collection))
+            {
+                return false;
+            }
+            for (Object addedObject : (Collection<?>)notification.getNewValue())
+            {
+                if (addedObject instanceof FormItem)
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
     }
 
 }
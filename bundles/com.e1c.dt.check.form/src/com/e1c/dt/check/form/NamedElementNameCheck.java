@@ -28,9 +28,9 @@ import org.eclipse.emf.ecore.EClass;
 import com._1c.g5.v8.dt.common.StringUtils;
 import com._1c.g5.v8.dt.form.model.FormPackage;
 import com._1c.g5.v8.dt.mcore.NamedElement;
+import com.e1c.dt.check.common.metrics.MeasuredBasicCheck;
 import com.e1c.g5.v8.dt.check.CheckComplexity;
 import com.e1c.g5.v8.dt.check.ICheckParameters;
-import com.e1c.g5.v8.dt.check.components.BasicCheck;
 import com.e1c.g5.v8.dt.check.settings.IssueSeverity;
 import com.e1c.g5.v8.dt.check.settings.IssueType;
 
@@ -40,7 +40,7 @@ import com.e1c.g5.v8.dt.check.settings.IssueType;
  * @author Dmitriy Marmyshev
  */
 public class NamedElementNameCheck
-    extends BasicCheck
+    extends MeasuredBasicCheck
 {
     private static final String CHECK_ID = "form-named-element-name"; //$NON-NLS-1$
     private static final Set<EClass> EXCLUDED_CLASSES = Set.of(FormPackage.Literals.AUTO_COMMAND_BAR);
@@ -12,7 +12,13 @@
  *******************************************************************************/
 package com.e1c.dt.check.form;
 
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+import com._1c.g5.v8.bm.core.IBmEngine;
 import com._1c.g5.v8.bm.core.IBmObject;
+import com._1c.g5.v8.bm.core.IBmTransaction;
 import com._1c.g5.v8.dt.form.model.Form;
 import com._1c.g5.v8.dt.metadata.mdclass.ObjectBelonging;
 import com.e1c.g5.v8.dt.check.ICheckParameters;
@@ -21,22 +27,114 @@ import com.e1c.g5.v8.dt.check.ext.ITopObjectFilter;
 
 /**
  * Check extension to avoid checking inside of a BaseForm
+ * <p/>
+ * Classification of an adopted form requires resolution of its extension and base forms, and the filter is evaluated
+ * by every form check. The classification is therefore shared between all instances of the extension and reused
+ * within the transaction it has been made in. Classifications are kept per thread by BM identifiers of the forms,
+ * so neither forms nor transactions are strongly referenced.
  *
  * @author Vadim Geraskin
  */
 public class SkipBaseFormExtension
     implements IBasicCheckExtension
 {
+    /**
+     * Maximum number of classified forms kept for a single transaction.
+     */
+    private static final int MAX_CLASSIFIED_FORMS = 10000;
+
+    private static final ThreadLocal<ClassificationScope> SCOPE = ThreadLocal.withInitial(ClassificationScope::new);
+
     @Override
     public ITopObjectFilter contributeTopObjectFilter()
     {
         return (IBmObject object, ICheckParameters parameters) -> !isBaseForm((Form)object);
     }
 
-    private static boolean isBaseForm(Form form)
+    /**
+     * Checks if the form is a base form of an adopted form, i.e. it belongs to an extension and refers to
+     * the extension form while its own base form is missing or cannot be resolved. Within a transaction
+     * the classification of the form is made once and reused by subsequent calls in the same thread.
+     *
+     * @param form the form to check, may be {@code null}
+     * @return {@code true} if the form is a base form, {@code false} otherwise
+     */
+    public static boolean isBaseForm(Form form)
     {
-        return form != null && form.getMdForm().getObjectBelonging() == ObjectBelonging.ADOPTED
-            && form.getExtensionForm() != null && !form.getExtensionForm().eIsProxy()
-            && (form.getBaseForm() == null || form.getBaseForm().eIsProxy());
+        if (form == null || form.getMdForm().getObjectBelonging() != ObjectBelonging.ADOPTED)
+        {
+            return false;
+        }
+
+        IBmEngine engine = form.bmGetEngine();
+        IBmTransaction transaction = engine == null ? null : engine.getCurrentTransaction();
+        if (transaction == null)
+        {
+            // The model may change between invocations, so nothing is reused
+            return classify(form);
+        }
+        return SCOPE.get().getClassification(transaction, form);
+    }
+
+    /**
+     * Returns the number of forms that have been classified by resolving their references in the current thread.
+     * Classifications reused within a transaction are not counted.
+     *
+     * @return the number of classified forms
+     */
+    public static long getClassifiedFormCount()
+    {
+        return SCOPE.get().classifiedFormCount;
+    }
+
+    private static boolean classify(Form form)
+    {
+        SCOPE.get().classifiedFormCount++;
+        Form extensionForm = form.getExtensionForm();
+        Form baseForm = form.getBaseForm();
+        return extensionForm != null && !extensionForm.eIsProxy() && (baseForm == null || baseForm.eIsProxy());
+    }
+
+    /**
+     * Classifications of forms made within a single transaction in the current thread.
+     * Neither the forms nor the transaction is strongly referenced, so the scope does not keep them loaded.
+     */
+    private static final class ClassificationScope
+    {
+        private WeakReference<IBmTransaction> transaction = new WeakReference<>(null);
+
+        private final Map<Long, Boolean> classificationsByFormId = new HashMap<>();
+
+        private long classifiedFormCount;
+
+        /**
+         * Returns the classification of the form made within the transaction, classifies the form if it has not been
+         * classified yet. Classifications made within another transaction are dropped.
+         *
+         * @param bmTransaction Current transaction. Must not be {@code null}.
+         * @param form The form to classify. Must not be {@code null}.
+         * @return {@code true} if the form is a base form, {@code false} otherwise
+         */
+        boolean getClassification(IBmTransaction bmTransaction, Form form)
+        {
+            if (transaction.get() != bmTransaction)
+            {
+                transaction = new WeakReference<>(bmTransaction);
+                classificationsByFormId.clear();
+            }
+
+            Long formId = form.bmGetId();
+            Boolean classification = classificationsByFormId.get(formId);
+            if (classification == null)
+            {
+                classification = classify(form);
+                if (classificationsByFormId.size() >= MAX_CLASSIFIED_FORMS)
+                {
+                    classificationsByFormId.clear();
+                }
+                classificationsByFormId.put(formId, classification);
+            }
+            return classification;
+        }
     }
 }
@@ -14,11 +14,13 @@ package com.e1c.dt.check.internal.form;
 
 import org.eclipse.core.runtime.Plugin;
 
+import com._1c.g5.v8.dt.core.filesystem.IQualifiedNameFilePathConverter;
 import com._1c.g5.v8.dt.core.model.IModelEditingSupport;
 import com._1c.g5.v8.dt.core.platform.IBmModelManager;
 import com._1c.g5.v8.dt.core.platform.IV8ProjectManager;
 import com._1c.g5.v8.dt.form.service.FormIdentifierService;
 import com._1c.g5.v8.dt.form.service.datasourceinfo.IDataSourceInfoAssociationService;
+import com._1c.g5.v8.dt.platform.version.IRuntimeVersionSupport;
 import com._1c.g5.wiring.AbstractServiceAwareModule;
 
 /**
@@ -46,6 +48,8 @@ public class ExternalDependenciesModule
         bind(FormIdentifierService.class).toService();
         bind(IBmModelManager.class).toService();
         bind(IModelEditingSupport.class).toService();
+        bind(IQualifiedNameFilePathConverter.class).toService();
+        bind(IRuntimeVersionSupport.class).toService();
     }
 
 }
@@ -0,0 +1,333 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.internal.form;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.emf.ecore.EObject;
+
+import com._1c.g5.v8.bm.core.IBmObject;
+import com._1c.g5.v8.dt.form.model.FormItem;
+import com.e1c.dt.check.internal.form.FormItemIdValidator.Result;
+
+/**
+ * Index of valid form item identifiers per form.
+ * <p/>
+ * For each form that has been validated the index keeps multiplicity of every valid identifier:
+ * a set of identifiers used at least once and counts of identifiers used more than once.
+ * Context collectors use the index to decide whether a change of the form can affect the result of the validation.
+ * For example, when identifier of an item changes from a value that nobody else uses to a valid value
+ * that is not used yet, then only two identifier buckets change and there is no need to walk the whole form again.
+ * Similarly, removal of items that do not belong to any duplicate group can not change markers of remaining items.
+ * <p/>
+ * The index is conservative. Whenever a change cannot be applied incrementally, the form becomes unknown to the index
+ * until it is validated again. A validation that overlaps with a change of the same form is not recorded.
+ * Known identifiers are stamped with the version of the form they correspond to: a change is applied incrementally
+ * only when the stamp matches the current version of the form, i.e. no validation of the form is in progress and
+ * no change has been missed. Otherwise the change is reported as not applied, so the form is fully validated again.
+ * Indices are kept per BM engine, so form identifiers are unique within the index, and are dropped together with
+ * the engine. At most {@value #MAX_FORMS} least recently used forms are kept per engine, the evicted forms become
+ * unknown to the index. The index is thread-safe.
+ *
+ * @author Nikolay Martynov
+ */
+public final class FormItemIdIndex
+{
+    /**
+     * Maximum number of forms kept in the index of one BM engine.
+     */
+    static final int MAX_FORMS = 10_000;
+
+    /**
+     * Indices of forms per BM engine.
+     */
+    private final Map<Object, Map<Long, FormEntry>> engineIndices = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Source of versions of form entries. Versions are unique across entries, so a validation that has begun before
+     * the entry of the form was evicted is never recorded to the entry created afterwards.
+     */
+    private final AtomicLong versions = new AtomicLong();
+
+    /**
+     * Starts validation of the specified form.
+     *
+     * Changes of the form are not applied incrementally until the validation is recorded.
+     *
+     * @param form Form that is going to be validated. Must not be {@code null}.
+     * @return Stamp to be passed to {@link #endValidation(IBmObject, long, IntHashSet, Result)}.
+     */
+    public long beginValidation(IBmObject form)
+    {
+        FormEntry entry = getOrCreateEntry(form);
+        synchronized (entry)
+        {
+            // Known identifiers do not match the stamp until the validation is recorded
+            entry.version = versions.incrementAndGet();
+            return entry.version;
+        }
+    }
+
+    /**
+     * Records results of the validation of the specified form.
+     *
+     * Results are ignored if the form has been changed since {@link #beginValidation(IBmObject)}.
+     *
+     * @param form Validated form. Must not be {@code null}.
+     * @param stamp Stamp returned by {@link #beginValidation(IBmObject)}.
+     * @param ids Distinct valid identifiers of all form items. Must not be {@code null}.
+     * The set is owned by the index after this call.
+     * @param result Result of the validation. Must not be {@code null}.
+     */
+    public void endValidation(IBmObject form, long stamp, IntHashSet ids, Result result)
+    {
+        FormEntry entry = getEntry(form);
+        if (entry == null)
+        {
+            return;
+        }
+
+        Map<Integer, Integer> duplicateCounts = new HashMap<>();
+        for (int i = 0; i < result.size(); i++)
+        {
+            if (result.isDuplicate(i))
+            {
+                // The first occurrence is not reported so the count starts from 2
+                duplicateCounts.merge(result.getId(i), 2, (oldCount, one) -> oldCount + 1);
+            }
+        }
+        synchronized (entry)
+        {
+            if (entry.version == stamp)
+            {
+                entry.ids = ids;
+                entry.duplicateCounts = duplicateCounts;
+                entry.validatedVersion = stamp;
+            }
+        }
+    }
+
+    /**
+     * Applies change of an identifier of a form item if it can not affect the result of the validation.
+     *
+     * This is the case when the old identifier was valid and used only by the changed item and the new identifier
+     * is valid and not used by any other item. Otherwise the form becomes unknown to the index.
+     *
+     * @param form Form of the changed item. Must not be {@code null}.
+     * @param oldId Identifier of the item before the change.
+     * @param newId Identifier of the item after the change.
+     * @param newIdValid Whether the new identifier is valid by itself.
+     * @return {@code true} if the change has been applied and the form does not need to be validated again.
+     */
+    public boolean changeId(IBmObject form, int oldId, int newId, boolean newIdValid)
+    {
+        FormEntry entry = getEntry(form);
+        if (entry == null)
+        {
+            return false;
+        }
+        synchronized (entry)
+        {
+            boolean known = entry.isKnown();
+            entry.version = versions.incrementAndGet();
+            if (known && newIdValid && entry.count(oldId) == 1 && entry.count(newId) == 0)
+            {
+                entry.ids.remove(oldId);
+                entry.ids.add(newId);
+                entry.validatedVersion = entry.version;
+                return true;
+            }
+            entry.forget();
+            return false;
+        }
+    }
+
+    /**
+     * Applies removal of form items if it can not affect the result of the validation.
+     *
+     * This is the case when each of the removed items and items nested into them had a valid identifier
+     * that has not been used by any other item, so no duplicate group is affected.
+     * Otherwise the form becomes unknown to the index.
+     *
+     * @param form Form from which the items have been removed. Must not be {@code null}.
+     * @param removedItems Removed form items. Must not be {@code null}.
+     * @return {@code true} if the removal has been applied and the form does not need to be validated again.
+     */
+    public boolean removeItems(IBmObject form, Collection<? extends FormItem> removedItems)
+    {
+        int[] removedIds = new int[removedItems.size()];
+        int removedCount = 0;
+        for (FormItem removedItem : removedItems)
+        {
+            removedIds = append(removedIds, removedCount++, removedItem.getId());
+            for (Iterator<EObject> iterator = removedItem.eAllContents(); iterator.hasNext();)
+            {
+                EObject nestedObject = iterator.next();
+                if (nestedObject instanceof FormItem)
+                {
+                    removedIds = append(removedIds, removedCount++, ((FormItem)nestedObject).getId());
+                }
+            }
+        }
+        FormEntry entry = getEntry(form);
+        if (entry == null)
+        {
+            return false;
+        }
+        synchronized (entry)
+        {
+            boolean known = entry.isKnown();
+            entry.version = versions.incrementAndGet();
+            if (!known)
+            {
+                entry.forget();
+                return false;
+            }
+            for (int i = 0; i < removedCount; i++)
+            {
+                // An identifier of the duplicate group or an invalid identifier that is not indexed at all
+                if (entry.count(removedIds[i]) != 1)
+                {
+                    entry.forget();
+                    return false;
+                }
+            }
+            for (int i = 0; i < removedCount; i++)
+            {
+                entry.ids.remove(removedIds[i]);
+            }
+            entry.validatedVersion = entry.version;
+            return true;
+        }
+    }
+
+    /**
+     * Makes the form unknown to the index until it is validated again.
+     *
+     * @param form Changed form. Must not be {@code null}.
+     */
+    public void invalidate(IBmObject form)
+    {
+        FormEntry entry = getEntry(form);
+        if (entry == null)
+        {
+            return;
+        }
+        synchronized (entry)
+        {
+            entry.version = versions.incrementAndGet();
+            entry.forget();
+        }
+    }
+
+    private static int[] append(int[] values, int size, int value)
+    {
+        int[] result = size == values.length ? Arrays.copyOf(values, size * 2 + 1) : values;
+        result[size] = value;
+        return result;
+    }
+
+    private FormEntry getOrCreateEntry(IBmObject form)
+    {
+        Map<Long, FormEntry> index = engineIndices.computeIfAbsent(form.bmGetEngine(), key -> newEngineIndex());
+        return index.computeIfAbsent(form.bmGetId(), key -> new FormEntry(versions.incrementAndGet()));
+    }
+
+    /*
+     * Returns the entry of the form or null if the form is not in the index, a change of the form that is not
+     * in the index is not recorded since no validation of the form can be recorded afterwards
+     */
+    private FormEntry getEntry(IBmObject form)
+    {
+        Map<Long, FormEntry> index = engineIndices.get(form.bmGetEngine());
+        return index == null ? null : index.get(form.bmGetId());
+    }
+
+    private static Map<Long, FormEntry> newEngineIndex()
+    {
+        return Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, FormEntry> eldest)
+            {
+                return size() > MAX_FORMS;
+            }
+        });
+    }
+
+    /*
+     * Known identifiers of the single form
+     */
+    private static final class FormEntry
+    {
+        /**
+         * Distinct valid identifiers or {@code null} if the form is unknown.
+         */
+        private IntHashSet ids;
+
+        /**
+         * Summary of duplicate groups: counts of valid identifiers used by more than one item.
+         */
+        private Map<Integer, Integer> duplicateCounts;
+
+        /**
+         * Changed on every change of the form and on every start of its validation.
+         */
+        private long version;
+
+        /**
+         * Version of the form that the known identifiers correspond to.
+         */
+        private long validatedVersion;
+
+        FormEntry(long version)
+        {
+            this.version = version;
+        }
+
+        int count(int id)
+        {
+            Integer duplicateCount = duplicateCounts.get(id);
+            if (duplicateCount != null)
+            {
+                return duplicateCount;
+            }
+            return ids.contains(id) ? 1 : 0;
+        }
+
+        /*
+         * Checks that identifiers are known and correspond to the current version of the form,
+         * so changes can be applied to them incrementally
+         */
+        boolean isKnown()
+        {
+            return ids != null && validatedVersion == version;
+        }
+
+        void forget()
+        {
+            ids = null;
+            duplicateCounts = null;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.internal.form;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com._1c.g5.v8.dt.form.model.Form;
+import com._1c.g5.v8.dt.form.model.FormItem;
+import com._1c.g5.v8.dt.form.service.FormIdentifierService;
+import com._1c.g5.v8.dt.form.service.item.FormItemIterator;
+
+/**
+ * Validates identifiers of form items.
+ * <p/>
+ * <ul>
+ * <li>Each {@link FormItem} on a form is checked regardless of how deep it is nested.
+ * Items are visited in the order of {@link FormItemIterator}.</li>
+ * <li>Correctness of individual form item identifiers is determined as per
+ * {@link FormIdentifierService#hasValidId(FormItem)}.</li>
+ * <li>Form items have to have a unique identifier value across all other items on the form.
+ * The first item with the identifier is considered to be valid while others are deemed to be duplicates.</li>
+ * </ul>
+ * The form is walked once. The {@link Result} of the validation is compact: it holds positions of problematic
+ * items in the walk order and their identifiers, so it can be {@link Result#detach() detached} from the form and
+ * kept while the form is evicted. A detached result describes the form at the moment of validation only, it can be
+ * {@link Result#attach(Form) attached} to the form again as long as the form has not been changed since.
+ *
+ * @author Nikolay Martynov
+ */
+public final class FormItemIdValidator
+{
+    /**
+     * Version of the validation rules. It has to be increased whenever the rules change, so results of the
+     * validation persisted by the previous versions are not reused.
+     */
+    public static final int RULES_VERSION = 1;
+
+    /**
+     * Service that is used to check identifiers of form items.
+     */
+    private final FormIdentifierService formIdentifierService;
+
+    /**
+     * Creates new instance.
+     *
+     * @param formIdentifierService Service to be used to check form item identifiers. Must not be {@code null}.
+     */
+    public FormItemIdValidator(FormIdentifierService formIdentifierService)
+    {
+        this.formIdentifierService = formIdentifierService;
+    }
+
+    /**
+     * Checks if identifier of the specified form item is valid by itself.
+     *
+     * @param item Form item to check. Must not be {@code null}.
+     * @return {@code true} if identifier of the form item is valid.
+     */
+    public boolean hasValidId(FormItem item)
+    {
+        return formIdentifierService.hasValidId(item);
+    }
+
+    /**
+     * Checks if there are no issues with the specified form.
+     *
+     * This is a short-circuit operation
+     * that returns as soon as it is obvious that there are issues.
+     *
+     * @param form Form to validate. Must not be {@code null}.
+     * @return {@code true} if there are no issues to be fixed.
+     */
+    public boolean isValid(Form form)
+    {
+        IntHashSet seenIdentifiers = new IntHashSet();
+        FormItemIterator itemIterator = new FormItemIterator(form);
+        while (itemIterator.hasNext())
+        {
+            FormItem item = itemIterator.next();
+            if (!formIdentifierService.hasValidId(item) || !seenIdentifiers.add(item.getId()))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Validates specified form.
+     *
+     * @param form Form to validate. May be {@code null}.
+     * @return Result of the validation. An empty result if {@code form} is {@code null}. Never {@code null}.
+     */
+    public Result validate(Form form)
+    {
+        return validate(form, new IntHashSet());
+    }
+
+    /**
+     * Validates specified form collecting identifiers of its form items.
+     *
+     * @param form Form to validate. May be {@code null}.
+     * @param seenIdentifiers Empty set to be filled with valid identifiers of all form items. Must not be
+     * {@code null}.
+     * @return Result of the validation. An empty result if {@code form} is {@code null}. Never {@code null}.
+     */
+    public Result validate(Form form, IntHashSet seenIdentifiers)
+    {
+        if (form == null)
+        {
+            return Result.EMPTY;
+        }
+        ResultBuilder builder = new ResultBuilder();
+        FormItemIterator itemIterator = new FormItemIterator(form);
+        int position = 0;
+        while (itemIterator.hasNext())
+        {
+            FormItem item = itemIterator.next();
+            if (!formIdentifierService.hasValidId(item))
+            {
+                builder.add(item, position, false);
+            }
+            else if (!seenIdentifiers.add(item.getId()))
+            {
+                builder.add(item, position, true);
+            }
+            position++;
+        }
+        return builder.build(position);
+    }
+
+    /**
+     * Result of the validation of form item identifiers. Problems are ordered by the position of the item.
+     */
+    public static final class Result
+    {
+        private static final Result EMPTY = new Result(null, new int[0], new int[0], new boolean[0], 0);
+
+        private final List<FormItem> items;
+
+        private final int[] positions;
+
+        private final int[] ids;
+
+        private final boolean[] duplicates;
+
+        private final int itemCount;
+
+        private Result(List<FormItem> items, int[] positions, int[] ids, boolean[] duplicates, int itemCount)
+        {
+            this.items = items;
+            this.positions = positions;
+            this.ids = ids;
+            this.duplicates = duplicates;
+            this.itemCount = itemCount;
+        }
+
+        /**
+         * Restores detached result from its previously saved state.
+         *
+         * @param positions Positions of problematic form items as per {@link #getPosition(int)}.
+         * Must not be {@code null}.
+         * @param ids Identifiers of problematic form items as per {@link #getId(int)}. Must not be {@code null}.
+         * @param duplicates Duplicate flags of problematic form items as per {@link #isDuplicate(int)}.
+         * Must not be {@code null}.
+         * @param itemCount Number of all form items as per {@link #getItemCount()}.
+         * @return Detached result. Never {@code null}.
+         * @throws IllegalArgumentException if lengths of the arrays differ.
+         */
+        public static Result detached(int[] positions, int[] ids, boolean[] duplicates, int itemCount)
+        {
+            if (positions.length != ids.length || positions.length != duplicates.length)
+            {
+                throw new IllegalArgumentException("Lengths of problem arrays differ"); //$NON-NLS-1$
+            }
+            return new Result(null, positions.clone(), ids.clone(), duplicates.clone(), itemCount);
+        }
+
+        /**
+         * Checks if no problems have been found.
+         *
+         * @return {@code true} if no problems have been found.
+         */
+        public boolean isValid()
+        {
+            return positions.length == 0;
+        }
+
+        /**
+         * Returns number of all form items walked during validation.
+         *
+         * @return Number of form items on the validated form.
+         */
+        public int getItemCount()
+        {
+            return itemCount;
+        }
+
+        /**
+         * Returns number of problematic form items.
+         *
+         * @return Number of problematic form items.
+         */
+        public int size()
+        {
+            return positions.length;
+        }
+
+        /**
+         * Returns problematic form item.
+         *
+         * @param idx Index of the problem. Must be less than {@link #size()}.
+         * @return Problematic form item. Never {@code null}.
+         * @throws IllegalStateException if the result has been {@link #detach() detached} from the form.
+         */
+        public FormItem getItem(int idx)
+        {
+            if (items == null)
+            {
+                throw new IllegalStateException("Result is detached from the form"); //$NON-NLS-1$
+            }
+            return items.get(idx);
+        }
+
+        /**
+         * Returns position of the problematic form item in the order of {@link FormItemIterator}.
+         *
+         * @param idx Index of the problem. Must be less than {@link #size()}.
+         * @return Position of the form item.
+         */
+        public int getPosition(int idx)
+        {
+            return positions[idx];
+        }
+
+        /**
+         * Returns identifier the problematic form item had during validation.
+         *
+         * @param idx Index of the problem. Must be less than {@link #size()}.
+         * @return Identifier of the form item.
+         */
+        public int getId(int idx)
+        {
+            return ids[idx];
+        }
+
+        /**
+         * Checks if the problematic form item duplicates the identifier of one of the preceding items.
+         * Otherwise, the identifier of the form item is invalid by itself.
+         *
+         * @param idx Index of the problem. Must be less than {@link #size()}.
+         * @return {@code true} if the identifier is a duplicate.
+         */
+        public boolean isDuplicate(int idx)
+        {
+            return duplicates[idx];
+        }
+
+        /**
+         * Finds problematic form items of the detached result on the specified form.
+         *
+         * The form is walked up to the last problematic item only. Each found item must still have the identifier
+         * it had during validation, otherwise the form has been changed since and the result does not match it.
+         * Items that are not problematic are not checked, so the result is attached only to the unchanged form.
+         *
+         * @param form Form the result has been obtained for. Must not be {@code null}.
+         * @return Result that references form items of the specified form or {@code null} if the form does not
+         * match the result.
+         */
+        public Result attach(Form form)
+        {
+            List<FormItem> attachedItems = new ArrayList<>(positions.length);
+            FormItemIterator itemIterator = new FormItemIterator(form);
+            int position = 0;
+            for (int i = 0; i < positions.length; i++)
+            {
+                FormItem item = null;
+                while (position <= positions[i] && itemIterator.hasNext())
+                {
+                    item = itemIterator.next();
+                    position++;
+                }
+                if (position != positions[i] + 1 || item == null || item.getId() != ids[i])
+                {
+                    return null;
+                }
+                attachedItems.add(item);
+            }
+            return new Result(attachedItems, positions, ids, duplicates, itemCount);
+        }
+
+        /**
+         * Returns copy of the result that does not reference form items, so the form can be evicted.
+         *
+         * @return Detached result. Never {@code null}.
+         */
+        public Result detach()
+        {
+            return items == null ? this : new Result(null, positions, ids, duplicates, itemCount);
+        }
+    }
+
+    /*
+     * Accumulates problems found during the walk
+     */
+    private static final class ResultBuilder
+    {
+        private final List<FormItem> items = new ArrayList<>();
+
+        private int[] positions = new int[4];
+
+        private int[] ids = new int[4];
+
+        private boolean[] duplicates = new boolean[4];
+
+        void add(FormItem item, int position, boolean duplicate)
+        {
+            int size = items.size();
+            if (size == positions.length)
+            {
+                positions = Arrays.copyOf(positions, size * 2);
+                ids = Arrays.copyOf(ids, size * 2);
+                duplicates = Arrays.copyOf(duplicates, size * 2);
+            }
+            items.add(item);
+            positions[size] = position;
+            ids[size] = item.getId();
+            duplicates[size] = duplicate;
+        }
+
+        Result build(int itemCount)
+        {
+            int size = items.size();
+            if (size == 0 && itemCount == 0)
+            {
+                return Result.EMPTY;
+            }
+            return new Result(items, Arrays.copyOf(positions, size), Arrays.copyOf(ids, size),
+                Arrays.copyOf(duplicates, size), itemCount);
+        }
+    }
+}
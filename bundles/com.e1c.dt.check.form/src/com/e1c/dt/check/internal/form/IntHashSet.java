@@ -0,0 +1,220 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.internal.form;
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive {@code int} values based on open addressing with linear probing.
+ *
+ * This set is used to detect duplicate form item identifiers without boxing every identifier
+ * as {@code HashSet<Integer>} does.
+ * The set is not thread-safe.
+ *
+ * @author Nikolay Martynov
+ */
+public final class IntHashSet
+{
+    /**
+     * Value used to mark empty slots. The value itself is tracked by a separate flag.
+     */
+    private static final int EMPTY = 0;
+
+    private static final int DEFAULT_EXPECTED_SIZE = 64;
+
+    private int[] slots;
+
+    private boolean containsEmpty;
+
+    private int size;
+
+    /**
+     * Creates new empty set.
+     */
+    public IntHashSet()
+    {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    /**
+     * Creates new empty set that can hold specified number of elements without rehashing.
+     *
+     * @param expectedSize Expected number of elements. Must not be negative.
+     */
+    public IntHashSet(int expectedSize)
+    {
+        slots = new int[capacityFor(expectedSize)];
+    }
+
+    /**
+     * Adds specified value to the set.
+     *
+     * @param value Value to add.
+     * @return {@code true} if the set did not already contain the value.
+     */
+    public boolean add(int value)
+    {
+        if (value == EMPTY)
+        {
+            if (containsEmpty)
+            {
+                return false;
+            }
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+        int mask = slots.length - 1;
+        int index = mix(value) & mask;
+        while (slots[index] != EMPTY)
+        {
+            if (slots[index] == value)
+            {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        slots[index] = value;
+        size++;
+        if (size * 2 > slots.length)
+        {
+            rehash(slots.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * Removes specified value from the set.
+     *
+     * @param value Value to remove.
+     * @return {@code true} if the set contained the value.
+     */
+    public boolean remove(int value)
+    {
+        if (value == EMPTY)
+        {
+            if (!containsEmpty)
+            {
+                return false;
+            }
+            containsEmpty = false;
+            size--;
+            return true;
+        }
+        int mask = slots.length - 1;
+        int index = mix(value) & mask;
+        while (slots[index] != value)
+        {
+            if (slots[index] == EMPTY)
+            {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        // Shift following values of the probe sequence back so lookups do not stop at the freed slot
+        int freed = index;
+        int next = (freed + 1) & mask;
+        while (slots[next] != EMPTY)
+        {
+            int home = mix(slots[next]) & mask;
+            if (((next - home) & mask) >= ((next - freed) & mask))
+            {
+                slots[freed] = slots[next];
+                freed = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[freed] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * Checks if the set contains specified value.
+     *
+     * @param value Value to look for.
+     * @return {@code true} if the set contains the value.
+     */
+    public boolean contains(int value)
+    {
+        if (value == EMPTY)
+        {
+            return containsEmpty;
+        }
+        int mask = slots.length - 1;
+        int index = mix(value) & mask;
+        while (slots[index] != EMPTY)
+        {
+            if (slots[index] == value)
+            {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Returns number of elements in the set.
+     *
+     * @return Number of elements in the set.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Removes all elements from the set keeping its capacity.
+     */
+    public void clear()
+    {
+        Arrays.fill(slots, EMPTY);
+        containsEmpty = false;
+        size = 0;
+    }
+
+    private void rehash(int newCapacity)
+    {
+        int[] oldSlots = slots;
+        slots = new int[newCapacity];
+        int mask = newCapacity - 1;
+        for (int value : oldSlots)
+        {
+            if (value != EMPTY)
+            {
+                int index = mix(value) & mask;
+                while (slots[index] != EMPTY)
+                {
+                    index = (index + 1) & mask;
+                }
+                slots[index] = value;
+            }
+        }
+    }
+
+    /**
+     * Spreads bits of the value since form item identifiers are mostly small sequential numbers.
+     */
+    private static int mix(int value)
+    {
+        int hash = value * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int capacityFor(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 4) * 2 - 1) << 1;
+        return Math.max(capacity, 8);
+    }
+}
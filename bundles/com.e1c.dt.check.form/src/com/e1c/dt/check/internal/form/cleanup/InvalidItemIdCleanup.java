@@ -13,49 +13,85 @@
 package com.e1c.dt.check.internal.form.cleanup;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.emf.ecore.EClass;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.SubMonitor;
+import org.osgi.framework.FrameworkUtil;
 
 import com._1c.g5.v8.bm.core.IBmObject;
 import com._1c.g5.v8.bm.core.IBmTransaction;
 import com._1c.g5.v8.bm.integration.AbstractBmTask;
 import com._1c.g5.v8.bm.integration.IBmModel;
+import com._1c.g5.v8.dt.core.filesystem.IQualifiedNameFilePathConverter;
 import com._1c.g5.v8.dt.core.model.EditingMode;
 import com._1c.g5.v8.dt.core.model.IModelEditingSupport;
 import com._1c.g5.v8.dt.core.platform.IBmModelManager;
 import com._1c.g5.v8.dt.core.platform.IDtProject;
 import com._1c.g5.v8.dt.form.model.Form;
 import com._1c.g5.v8.dt.form.model.FormItem;
-import com._1c.g5.v8.dt.form.model.FormPackage;
 import com._1c.g5.v8.dt.form.service.FormIdentifierService;
-import com._1c.g5.v8.dt.form.service.item.FormItemIterator;
 import com._1c.g5.v8.dt.migration.cleanup.ICleanUpProjectObjectTasksProvider;
+import com._1c.g5.v8.dt.platform.version.IRuntimeVersionSupport;
+import com.e1c.dt.check.internal.form.CorePlugin;
+import com.e1c.dt.check.internal.form.FormItemIdValidator;
+import com.e1c.dt.check.internal.form.FormItemIdValidator.Result;
 import com.google.inject.Inject;
 
 /**
  * Cleans up invalid identifiers of form items.
  * <p/>
  * <ul>
- * <li>If BM instance can be obtained then non-lightweight read-only transaction is used to list forms
- * (via {@link IBmTransaction#getTopObjectIterator(EClass)}) and</li>
+ * <li>Forms are listed by their source files without loading them, fully qualified names of the forms are obtained
+ * from paths of the files via {@link IQualifiedNameFilePathConverter}.</li>
+ * <li>If BM instance can be obtained then non-lightweight read-only transaction is used to get the listed forms
+ * (via {@link IBmTransaction#getTopObjectByFqn(String)}) and</li>
  * <li>for each form it is checked if it can be edited. Ineditable froms are omitted from validation and cleanup.</li>
- * <li>Quick form checking is performed to skip forms without issues.</li>
- * <li>For each form with issues, a separate cleanup task will be returned for further management by
- * {@code com._1c.g5.v8.dt.internal.migration.cleanup.CleanUpProjectSourcesManager}.</li>
+ * <li>Each form is validated by a single walk of {@link FormItemIdValidator}. Results of forms with issues are
+ * detached from the forms and kept along with the revisions of the forms.</li>
+ * <li>Forms with issues are grouped into batches and a separate cleanup task will be returned for each batch
+ * for further management by {@code com._1c.g5.v8.dt.internal.migration.cleanup.CleanUpProjectSourcesManager},
+ * so all forms of a batch are fixed in a single transaction. Number of forms in a batch is limited by
+ * {@value #BATCH_SIZE_PROPERTY} system property ({@value #DEFAULT_BATCH_SIZE} by default). Since all forms of
+ * a batch stay loaded until the transaction is committed, total number of their form items is limited by
+ * {@value #BATCH_ITEMS_PROPERTY} system property ({@value #DEFAULT_BATCH_ITEMS} by default) as well. A form that
+ * exceeds the latter limit by itself is fixed in its own transaction.</li>
  * <li>After analsis of the form, it will be evicted from the transaction to conserve memory</li>
+ * <li>Forms found clean are remembered in a persistent per-project cache along with the modification stamps of their
+ * source files. Forms that have not been modified since then are neither loaded nor validated during subsequent
+ * runs. Forms that no longer exist are dropped from the cache. The cache is dropped as soon as the version of the
+ * validation rules, the version of the form services or the runtime version of the project changes.</li>
+ * <li>If the scan is cancelled either by the monitor of the caller
+ * (see {@link #getCleanUpProjectTasks(IDtProject, IModelEditingSupport, IProgressMonitor)}) or by the monitor of
+ * the read-only task, forms with issues found so far are saved to a checkpoint, so the next scan resumes:
+ * forms processed before the cancellation are taken either from the cache or from the checkpoint.</li>
+ * <li>If {@value #PARALLELISM_PROPERTY} system property is greater than {@code 1}, the listed forms are validated by
+ * several read-only tasks running in parallel over disjoint contiguous ranges of the listed forms. The tasks are run
+ * by a pool shared by all scans. Cleanup tasks of the ranges are concatenated in the order of the ranges, so the
+ * result is the same as in the sequential mode.</li>
  * <li>Form cleanup tasks will obtain corresponding form (by its identifier) from the transaction,
- * perform full validation and fix each malformed form item identifier.</li>
+ * find malformed form items by attaching the detached validation result to the form and fix each of them.
+ * The form is validated again only if its revision differs from the one it had been validated at or the result
+ * does not match the form.</li>
  * </ul>
- * Both scanning (before quick-checking each form) and
- * fixing (before loading form to do full validation and before fixing each form item)
- * will be stopped as soon as cancellation is reported.
+ * Both scanning (before validating each form) and
+ * fixing (before loading each form and before fixing each form item)
+ * will be stopped as soon as cancellation is reported. Fixing reports progress per form of the batch.
  * <p/>
  * Checking.
  * <ul>
@@ -82,6 +118,43 @@ public class InvalidItemIdCleanup
     implements ICleanUpProjectObjectTasksProvider
 {
 
+    /**
+     * System property with the number of threads used to validate forms. Forms are validated sequentially
+     * if the property is not set or is not greater than {@code 1}.
+     */
+    public static final String PARALLELISM_PROPERTY = "com.e1c.dt.check.form.cleanup.parallelism"; //$NON-NLS-1$
+
+    /**
+     * System property with the maximal number of forms fixed in one transaction.
+     */
+    public static final String BATCH_SIZE_PROPERTY = "com.e1c.dt.check.form.cleanup.batchSize"; //$NON-NLS-1$
+
+    /**
+     * System property with the maximal total number of form items of forms fixed in one transaction.
+     */
+    public static final String BATCH_ITEMS_PROPERTY = "com.e1c.dt.check.form.cleanup.batchItems"; //$NON-NLS-1$
+
+    /**
+     * Number of form ranges per thread, so threads that got lighter forms can take over remaining ranges.
+     */
+    private static final int RANGES_PER_THREAD = 4;
+
+    /**
+     * Default maximal number of forms fixed in one transaction. Forms with issues are rare, so a batch of such size
+     * is usually limited by the total number of form items rather than by the number of forms.
+     */
+    private static final int DEFAULT_BATCH_SIZE = 32;
+
+    /**
+     * Default maximal total number of form items of forms fixed in one transaction.
+     */
+    private static final int DEFAULT_BATCH_ITEMS = 100_000;
+
+    /**
+     * Name of the source file of a form.
+     */
+    private static final String FORM_FILE_NAME = "Form.form"; //$NON-NLS-1$
+
     /**
      * Service used to obtain project model.
      */
@@ -92,6 +165,21 @@ public class InvalidItemIdCleanup
      */
     private final FormIdentifierService formIdentifierService;
 
+    /**
+     * Service that is used to find source files of forms.
+     */
+    private final IQualifiedNameFilePathConverter qualifiedNameFilePathConverter;
+
+    /**
+     * Service that is used to get the runtime version of the project for the version of the validation rules.
+     */
+    private final IRuntimeVersionSupport runtimeVersionSupport;
+
+    /**
+     * Validator of form item identifiers.
+     */
+    private final FormItemIdValidator validator;
+
     /**
      * Creates new instance.
      *
@@ -99,87 +187,456 @@ public class InvalidItemIdCleanup
      * Must not be {@code null}.
      * @param formIdentifierService Service to be used to generate
      * new identifiers when fixing broken form items. Must not be {@code null}.
+     * @param qualifiedNameFilePathConverter Service to be used to find source files of forms
+     * to skip forms that have not been changed since they were found clean. Must not be {@code null}.
+     * @param runtimeVersionSupport Service to be used to get the runtime version of the project, so forms found clean
+     * for another version are validated again. Must not be {@code null}.
      */
     @Inject
-    public InvalidItemIdCleanup(IBmModelManager bmModelManager, FormIdentifierService formIdentifierService)
+    public InvalidItemIdCleanup(IBmModelManager bmModelManager, FormIdentifierService formIdentifierService,
+        IQualifiedNameFilePathConverter qualifiedNameFilePathConverter, IRuntimeVersionSupport runtimeVersionSupport)
     {
         this.bmModelManager = bmModelManager;
         this.formIdentifierService = formIdentifierService;
+        this.qualifiedNameFilePathConverter = qualifiedNameFilePathConverter;
+        this.runtimeVersionSupport = runtimeVersionSupport;
+        this.validator = new FormItemIdValidator(formIdentifierService);
     }
 
     @Override
     public List<ICleanUpBmObjectTask> getCleanUpProjectTasks(IDtProject project, IModelEditingSupport editingSupport)
+    {
+        return getCleanUpProjectTasks(project, editingSupport, new NullProgressMonitor());
+    }
+
+    /**
+     * Returns tasks that clean up invalid identifiers of form items of the project.
+     *
+     * The monitor of the caller is checked before each form is validated along with the monitor of the read-only
+     * task, so cancellation of the caller stops the scan and saves its checkpoint as well.
+     *
+     * @param project Project to clean up. Must not be {@code null}.
+     * @param editingSupport Editing support used to skip ineditable forms. Must not be {@code null}.
+     * @param monitor Monitor of the caller to check for cancellation. Must not be {@code null}.
+     * @return Cleanup tasks, one per batch of forms to fix. Never {@code null}.
+     */
+    public List<ICleanUpBmObjectTask> getCleanUpProjectTasks(IDtProject project, IModelEditingSupport editingSupport,
+        IProgressMonitor monitor)
     {
         IBmModel model = bmModelManager.getModel(project);
         if (model == null)
         {
             return Collections.emptyList();
         }
-        return model.executeReadonlyTask(new CollectCleanupTasksTask(editingSupport), false);
+        int parallelism = Math.min(Integer.getInteger(PARALLELISM_PROPERTY, 1),
+            Runtime.getRuntime().availableProcessors());
+        ScanContext context = new ScanContext(editingSupport, project.getWorkspaceProject(), monitor);
+        String[] formFqns = context.listForms();
+        context.knownCleanForms.retainAll(Arrays.asList(formFqns));
+        List<FormToFix> formsToFix = parallelism > 1 && formFqns.length > 1
+            ? collectInParallel(model, context, formFqns, parallelism)
+            : model.executeReadonlyTask(new CollectCleanupTasksTask(context, formFqns, 0, formFqns.length), false);
+        context.knownCleanForms.save();
+        if (context.isCancelled())
+        {
+            // Remember forms with issues found so far, so the next scan can resume
+            context.checkpoint.clear();
+            formsToFix.forEach(formToFix -> context.checkpoint.add(formToFix.formId, formToFix.revision,
+                formToFix.validationResult));
+            context.checkpoint.save();
+        }
+        else
+        {
+            context.checkpoint.delete();
+        }
+        return toBatches(formsToFix, project.getWorkspaceProject(),
+            Math.max(1, Integer.getInteger(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE)),
+            Math.max(1, Integer.getInteger(BATCH_ITEMS_PROPERTY, DEFAULT_BATCH_ITEMS)));
+    }
+
+    /**
+     * Groups forms to be fixed into batches keeping their order.
+     *
+     * @param formsToFix Forms to be fixed. Must not be {@code null}.
+     * @param project Project of the forms. Must not be {@code null}.
+     * @param batchSize Maximal number of forms in a batch.
+     * @param batchItems Maximal total number of form items of forms in a batch.
+     * @return Cleanup tasks, one per batch. Never {@code null}.
+     */
+    private List<ICleanUpBmObjectTask> toBatches(List<FormToFix> formsToFix, IProject project, int batchSize,
+        int batchItems)
+    {
+        List<ICleanUpBmObjectTask> fixTasks = new ArrayList<>();
+        List<FormToFix> batch = new ArrayList<>();
+        long itemCount = 0;
+        for (FormToFix formToFix : formsToFix)
+        {
+            int formItemCount = formToFix.validationResult.getItemCount();
+            if (!batch.isEmpty() && (batch.size() == batchSize || itemCount + formItemCount > batchItems))
+            {
+                fixTasks.add(new InvalidFormCleanupTask(batch, project));
+                batch = new ArrayList<>();
+                itemCount = 0;
+            }
+            batch.add(formToFix);
+            itemCount += formItemCount;
+        }
+        if (!batch.isEmpty())
+        {
+            fixTasks.add(new InvalidFormCleanupTask(batch, project));
+        }
+        return fixTasks;
     }
 
     /**
-     * Task that checks what needs to be fixed and returns fixing tasks.
+     * Validates the listed forms by several read-only tasks running in parallel.
+     *
+     * The forms are split into contiguous ranges. Each of {@code parallelism} workers of the shared pool takes
+     * the next range that has not been taken yet and validates it in its own transaction.
+     *
+     * @param model Model of the project. Must not be {@code null}.
+     * @param context Context of the scan. Must not be {@code null}.
+     * @param formFqns Fully qualified names of the listed forms. Must not be {@code null}.
+     * @param parallelism Number of threads to use, not greater than the number of available processors.
+     * @return Forms to be fixed in the order of the listed forms. Never {@code null}.
+     */
+    private List<FormToFix> collectInParallel(IBmModel model, ScanContext context, String[] formFqns,
+        int parallelism)
+    {
+        int rangeCount = Math.min(formFqns.length, parallelism * RANGES_PER_THREAD);
+        AtomicReferenceArray<List<FormToFix>> rangeResults = new AtomicReferenceArray<>(rangeCount);
+        AtomicInteger nextRange = new AtomicInteger();
+        Callable<Void> worker = () -> {
+            int i;
+            while (!context.isCancelled() && (i = nextRange.getAndIncrement()) < rangeCount)
+            {
+                int from = (int)((long)formFqns.length * i / rangeCount);
+                int to = (int)((long)formFqns.length * (i + 1) / rangeCount);
+                rangeResults.set(i,
+                    model.executeReadonlyTask(new CollectCleanupTasksTask(context, formFqns, from, to), false));
+            }
+            return null;
+        };
+
+        try
+        {
+            for (Future<Void> future : ScanPool.INSTANCE.invokeAll(Collections.nCopies(parallelism, worker)))
+            {
+                future.get();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new OperationCanceledException();
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException)cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error)cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+
+        List<FormToFix> formsToFix = new ArrayList<>();
+        for (int i = 0; i < rangeCount; i++)
+        {
+            List<FormToFix> rangeResult = rangeResults.get(i);
+            if (rangeResult != null)
+            {
+                // A range is not taken if the scan has been cancelled
+                formsToFix.addAll(rangeResult);
+            }
+        }
+        return formsToFix;
+    }
+
+    /**
+     * Task that checks what needs to be fixed in the specified range of the listed forms
+     * and returns forms to be fixed.
      */
     private class CollectCleanupTasksTask
-        extends AbstractBmTask<List<ICleanUpBmObjectTask>>
+        extends AbstractBmTask<List<FormToFix>>
     {
-        private final IModelEditingSupport editingSupport;
+        private final ScanContext context;
+
+        private final String[] formFqns;
+
+        private final int from;
+
+        private final int to;
 
         /**
-         * Creates an instance.
+         * Creates an instance that checks the range of the listed forms.
+         *
+         * @param context Context of the scan. Must not be {@code null}.
+         * @param formFqns Fully qualified names of the listed forms. Must not be {@code null}.
+         * @param from Index of the first form of the range, inclusive.
+         * @param to Index of the last form of the range, exclusive.
          */
-        public CollectCleanupTasksTask(IModelEditingSupport editingSupport)
+        CollectCleanupTasksTask(ScanContext context, String[] formFqns, int from, int to)
         {
             super(Messages.InvalidItemIdCleanup_Searching_invalid_form_item_identifiers);
-            this.editingSupport = editingSupport;
+            this.context = context;
+            this.formFqns = formFqns;
+            this.from = from;
+            this.to = to;
         }
 
         @Override
-        public List<ICleanUpBmObjectTask> execute(IBmTransaction transaction, IProgressMonitor progressMonitor)
+        public List<FormToFix> execute(IBmTransaction transaction, IProgressMonitor progressMonitor)
         {
-            Iterator<IBmObject> formIterator = transaction.getTopObjectIterator(FormPackage.Literals.FORM);
-            List<ICleanUpBmObjectTask> fixTasks = new ArrayList<>();
-            while (formIterator.hasNext() && !progressMonitor.isCanceled())
+            List<FormToFix> formsToFix = new ArrayList<>();
+            for (int i = from; i < to && !progressMonitor.isCanceled() && !context.isCancelled(); i++)
             {
-                Form form = (Form)formIterator.next();
-                if (editingSupport.canEdit(form, EditingMode.DIRECT) && !isValid(form))
+                String fqn = formFqns[i];
+                long revision = context.getRevision(fqn);
+                if (context.knownCleanForms.isClean(fqn, revision))
+                {
+                    // The form has not been changed since it was found clean, so it is not even loaded
+                    continue;
+                }
+                IBmObject object = transaction.getTopObjectByFqn(fqn);
+                if (object instanceof Form)
                 {
-                    fixTasks.add(new InvalidFormCleanupTask(form.bmGetId()));
+                    // The source file might not belong to the model
+                    collect((Form)object, fqn, revision, transaction, formsToFix);
                 }
-                transaction.evict(form.bmGetId());
             }
-            return fixTasks;
+            if (progressMonitor.isCanceled() || context.isCancelled())
+            {
+                context.cancelled = true;
+            }
+            return formsToFix;
         }
 
         /**
-         * Checks if there are issues with the specified form.
+         * Validates the form that is not known to be clean, adds it to the forms to be fixed if it is needed
+         * and evicts the form.
          *
-         * This is a short-circuit operation
-         * that should return as soon as it is obvious that there are issues.
+         * The form is walked once, the result of the validation is detached before the form is evicted.
+         * Forms with issues that have not been changed since they were saved to the checkpoint of the cancelled scan
+         * are not validated.
          *
          * @param form Form to validate. Must not be {@code null}.
-         * @return {@code true} if there are issues to be fixed.
+         * @param fqn Fully qualified name of the form. Must not be {@code null}.
+         * @param revision Current revision of the content of the form.
+         * @param transaction Current transaction. Must not be {@code null}.
+         * @param formsToFix Forms to be fixed found so far. Must not be {@code null}.
          */
-        private boolean isValid(Form form)
+        private void collect(Form form, String fqn, long revision, IBmTransaction transaction,
+            List<FormToFix> formsToFix)
         {
-            Set<Integer> seenIdentifiers = new HashSet<>();
-            FormItemIterator itemIterator = new FormItemIterator(form);
-            while (itemIterator.hasNext())
+            long formId = form.bmGetId();
+            if (context.editingSupport.canEdit(form, EditingMode.DIRECT))
             {
-                FormItem item = itemIterator.next();
-                if (!formIdentifierService.hasValidId(item) || !seenIdentifiers.add(item.getId()))
+                Result result = context.checkpoint.getResult(formId, revision);
+                if (result == null)
+                {
+                    // The result is detached so it does not hold the form items after eviction
+                    result = validator.validate(form).detach();
+                }
+                if (result.isValid())
+                {
+                    context.knownCleanForms.markClean(fqn, revision);
+                }
+                else
                 {
-                    return false;
+                    context.knownCleanForms.invalidate(fqn);
+                    formsToFix.add(new FormToFix(formId, fqn, revision, result));
                 }
             }
-            return true;
+            transaction.evict(formId);
         }
+    }
+
+    /**
+     * Context of the scan of forms of a single project.
+     */
+    private final class ScanContext
+    {
+        /**
+         * Editing support used to skip ineditable forms.
+         */
+        private final IModelEditingSupport editingSupport;
+
+        /**
+         * Project whose forms are scanned.
+         */
+        private final IProject project;
 
+        /**
+         * Forms found clean during previous scans.
+         */
+        private final KnownCleanForms knownCleanForms;
+
+        /**
+         * Forms with issues found by the previous scan that has been cancelled.
+         */
+        private final ScanCheckpoint checkpoint;
+
+        /**
+         * Monitor of the caller of the scan.
+         */
+        private final IProgressMonitor monitor;
+
+        /**
+         * Whether the scan has been cancelled before all forms were processed.
+         */
+        private volatile boolean cancelled;
+
+        /**
+         * Creates new instance.
+         *
+         * @param editingSupport Editing support used to skip ineditable forms. Must not be {@code null}.
+         * @param project Project whose forms are scanned. Must not be {@code null}.
+         * @param monitor Monitor of the caller of the scan. Must not be {@code null}.
+         */
+        ScanContext(IModelEditingSupport editingSupport, IProject project, IProgressMonitor monitor)
+        {
+            this.editingSupport = editingSupport;
+            this.project = project;
+            this.monitor = monitor;
+            String rulesVersion = getRulesVersion(project);
+            this.knownCleanForms = KnownCleanForms.load(project, rulesVersion);
+            this.checkpoint = ScanCheckpoint.load(project, rulesVersion);
+        }
+
+        /**
+         * Checks if the scan has been cancelled by one of its tasks or by the caller.
+         *
+         * @return {@code true} if the scan has to be stopped.
+         */
+        boolean isCancelled()
+        {
+            return cancelled || monitor.isCanceled();
+        }
+
+        /**
+         * Lists forms of the project by their source files without loading the forms.
+         *
+         * @return Fully qualified names of the forms in the order of their source files. Never {@code null}.
+         */
+        String[] listForms()
+        {
+            List<String> formFqns = new ArrayList<>();
+            try
+            {
+                project.accept(proxy -> {
+                    if (proxy.getType() == IResource.FILE && FORM_FILE_NAME.equals(proxy.getName()))
+                    {
+                        String fqn =
+                            qualifiedNameFilePathConverter.getFqn(proxy.requestFullPath().removeFirstSegments(1));
+                        if (fqn != null)
+                        {
+                            formFqns.add(fqn);
+                        }
+                    }
+                    return true;
+                }, IResource.NONE);
+            }
+            catch (CoreException e)
+            {
+                String message = "Unable to list forms of the project: " + project.getName(); //$NON-NLS-1$
+                CorePlugin.log(CorePlugin.createErrorStatus(message, e));
+            }
+            return formFqns.toArray(new String[0]);
+        }
+
+        /**
+         * Returns revision of the content of the form without loading the form.
+         *
+         * @param fqn Fully qualified name of the form. Must not be {@code null}.
+         * @return Revision of the form as per {@link InvalidItemIdCleanup#getRevision(IProject, String)}.
+         */
+        long getRevision(String fqn)
+        {
+            return InvalidItemIdCleanup.this.getRevision(project, fqn);
+        }
+    }
+
+    /**
+     * Returns revision of the content of the form without loading the form.
+     *
+     * @param project Project of the form. Must not be {@code null}.
+     * @param fqn Fully qualified name of the form. Must not be {@code null}.
+     * @return Modification stamp of the source file of the form or {@link KnownCleanForms#UNKNOWN_REVISION}
+     * if the file is unknown or does not exist.
+     */
+    private long getRevision(IProject project, String fqn)
+    {
+        IPath path = qualifiedNameFilePathConverter.getFilePath(fqn);
+        return path == null ? KnownCleanForms.UNKNOWN_REVISION : project.getFile(path).getModificationStamp();
+    }
+
+    /**
+     * Returns version of the rules forms of the project are validated by.
+     *
+     * Validity of identifiers is determined by {@link FormIdentifierService} and may depend on the runtime version
+     * of the project, so the version of the bundle of the service and the runtime version are included.
+     *
+     * @param project Project whose forms are validated. Must not be {@code null}.
+     * @return Version of the validation rules. Never {@code null}.
+     */
+    private String getRulesVersion(IProject project)
+    {
+        return FormItemIdValidator.RULES_VERSION + "/" //$NON-NLS-1$
+            + FrameworkUtil.getBundle(FormIdentifierService.class).getVersion() + "/" //$NON-NLS-1$
+            + runtimeVersionSupport.getRuntimeVersion(project);
+    }
+
+    /**
+     * Form that needs to be fixed.
+     */
+    private static final class FormToFix
+    {
+        /**
+         * Identifier of the form that needs to be fixed.
+         */
+        private final long formId;
+
+        /**
+         * Fully qualified name of the form that needs to be fixed.
+         */
+        private final String fqn;
+
+        /**
+         * Revision of the content of the form at the moment of validation.
+         */
+        private final long revision;
+
+        /**
+         * Detached result of the validation of the form obtained while collecting cleanup tasks. It is used to
+         * size batches, to save the checkpoint and to find the items to fix unless the form has been changed since.
+         */
+        private final Result validationResult;
+
+        /**
+         * Creates new instance.
+         * @param formId Identifier of the form that needs to be fixed.
+         * @param fqn Fully qualified name of the form that needs to be fixed. Must not be {@code null}.
+         * @param revision Revision of the content of the form at the moment of validation.
+         * @param validationResult Detached result of the validation of the form. Must not be {@code null}.
+         */
+        FormToFix(long formId, String fqn, long revision, Result validationResult)
+        {
+            this.formId = formId;
+            this.fqn = fqn;
+            this.revision = revision;
+            this.validationResult = validationResult;
+        }
     }
 
     /**
-     * Task that fixes invalid identifiers of all {@link FormItem} on the specified form.
+     * Task that fixes invalid identifiers of all {@link FormItem} on the specified batch of forms.
+     *
+     * Tasks are equal if they fix the same forms in the same order.
      */
     private class InvalidFormCleanupTask
         extends AbstractBmTask<Void>
@@ -187,67 +644,135 @@ public class InvalidItemIdCleanup
     {
 
         /**
-         * Identifier of the form that needs to be fixed.
+         * Forms that need to be fixed.
          */
-        private final long formIdToFix;
+        private final List<FormToFix> formsToFix;
+
+        /**
+         * Project of the forms, used to check if the forms have been changed since they were validated.
+         */
+        private final IProject project;
 
         /**
          * Creates new instance.
-         * @param formIdToFix Identifier of the form that needs to be fixed.
+         * @param formsToFix Forms that need to be fixed. Must not be {@code null}.
+         * @param project Project of the forms. Must not be {@code null}.
          */
-        InvalidFormCleanupTask(long formIdToFix)
+        InvalidFormCleanupTask(List<FormToFix> formsToFix, IProject project)
         {
             super(Messages.InvalidItemIdCleanup_Fixing_invalid_form_item_identifier);
-            this.formIdToFix = formIdToFix;
+            this.formsToFix = formsToFix;
+            this.project = project;
         }
 
         @Override
         public Void execute(IBmTransaction transaction, IProgressMonitor progressMonitor)
         {
-            if (progressMonitor.isCanceled())
-            {
-                return null;
-            }
-            Form form = (Form)transaction.getObjectById(formIdToFix);
-            for (FormItem itemToFix : validate(form))
+            SubMonitor monitor = SubMonitor.convert(progressMonitor, formsToFix.size());
+            for (FormToFix formToFix : formsToFix)
             {
-                if (progressMonitor.isCanceled())
+                if (monitor.isCanceled())
                 {
                     return null;
                 }
-                formIdentifierService.calculateNewIdFor(itemToFix).ifPresent(itemToFix::setId);
+                Form form = (Form)transaction.getObjectById(formToFix.formId);
+                for (FormItem itemToFix : findItemsToFix(form, formToFix))
+                {
+                    if (monitor.isCanceled())
+                    {
+                        return null;
+                    }
+                    formIdentifierService.calculateNewIdFor(itemToFix).ifPresent(itemToFix::setId);
+                }
+                monitor.worked(1);
             }
             return null;
         }
 
         /**
-         * Validates specified form.
+         * Finds form items with issues on the specified form.
          *
-         * @param form Form to validate. May be {@code null}.
+         * If the revision of the form is the same as at the moment of validation, the items are found by attaching
+         * the detached result of the validation to the form. Otherwise, or if the result does not match the form,
+         * the form is validated again within the fix transaction, so the items are found on the current state
+         * of the form.
+         *
+         * @param form Form to fix. May be {@code null}.
+         * @param formToFix Form to fix as found while collecting cleanup tasks. Must not be {@code null}.
          * @return Collection of form items that have issues or an empty collection if {@code form} is {@code null}
          * or there are no issue with any of the {@link FormItem}s on the specified form.
          * The result must never be {@code null}.
          */
-        private Collection<FormItem> validate(Form form)
+        private Collection<FormItem> findItemsToFix(Form form, FormToFix formToFix)
         {
             if (form == null)
             {
                 return Collections.emptyList();
             }
-            Collection<FormItem> itemsWithIssues = new ArrayList<>();
-            Set<Integer> seenIdentifiers = new HashSet<>();
-            FormItemIterator itemIterator = new FormItemIterator(form);
-            while (itemIterator.hasNext())
+            Result result = null;
+            if (formToFix.revision != KnownCleanForms.UNKNOWN_REVISION
+                && formToFix.revision == getRevision(project, formToFix.fqn))
             {
-                FormItem item = itemIterator.next();
-                if (!formIdentifierService.hasValidId(item) || !seenIdentifiers.add(item.getId()))
-                {
-                    itemsWithIssues.add(item);
-                }
+                result = formToFix.validationResult.attach(form);
+            }
+            if (result == null)
+            {
+                result = validator.validate(form);
+            }
+            List<FormItem> itemsWithIssues = new ArrayList<>(result.size());
+            for (int i = 0; i < result.size(); i++)
+            {
+                itemsWithIssues.add(result.getItem(i));
             }
             return itemsWithIssues;
         }
 
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof InvalidFormCleanupTask))
+            {
+                return false;
+            }
+            return getFormIds().equals(((InvalidFormCleanupTask)obj).getFormIds());
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return getFormIds().hashCode();
+        }
+
+        @Override
+        public String toString()
+        {
+            return getClass().getSimpleName() + getFormIds();
+        }
+
+        /*
+         * Returns identifiers of the forms to fix
+         */
+        private List<Long> getFormIds()
+        {
+            List<Long> formIds = new ArrayList<>(formsToFix.size());
+            for (FormToFix formToFix : formsToFix)
+            {
+                formIds.add(formToFix.formId);
+            }
+            return formIds;
+        }
+    }
+
+    /*
+     * Lazily created pool shared by parallel scans
+     */
+    private static final class ScanPool
+    {
+        private static final ForkJoinPool INSTANCE = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+        private ScanPool()
+        {
+        }
     }
 
 }
@@ -0,0 +1,212 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.internal.form.cleanup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+
+import com.e1c.dt.check.internal.form.CorePlugin;
+
+/**
+ * Persistent cache of forms that had no invalid item identifiers during the previous cleanup runs.
+ * <p/>
+ * For each clean form the cache keeps its fully qualified name along with the revision of its content.
+ * Revision is the modification stamp of the source file of the form, so a form that has been modified since it was
+ * found clean does not match its entry anymore and is validated again. Since both the name and the revision are
+ * known without loading the form or reading its file, known clean forms are skipped before they are loaded. Entries
+ * of forms that no longer exist are dropped by {@link #retainAll(Collection)}.
+ * <p/>
+ * The cache is stored in the working location of the project that is specific to this plugin. The header of the
+ * file holds the version of the rules the forms have been validated by, so the whole cache is dropped as soon as
+ * the rules change. A missing, unreadable or outdated file results in an empty cache. The cache is thread-safe.
+ *
+ * @author Nikolay Martynov
+ */
+final class KnownCleanForms
+{
+    /**
+     * Revision of forms which source file is unknown. Such forms are never considered to be clean.
+     */
+    static final long UNKNOWN_REVISION = IResource.NULL_STAMP;
+
+    /**
+     * Name of the file in the working location of the project.
+     */
+    private static final String FILE_NAME = "known-clean-forms.bin"; //$NON-NLS-1$
+
+    /**
+     * Version of the file format.
+     */
+    private static final int FORMAT_VERSION = 3;
+
+    private final Path file;
+
+    private final String rulesVersion;
+
+    private final Map<String, Long> revisions = new ConcurrentHashMap<>();
+
+    private volatile boolean changed;
+
+    private KnownCleanForms(Path file, String rulesVersion)
+    {
+        this.file = file;
+        this.rulesVersion = rulesVersion;
+    }
+
+    /**
+     * Loads the cache of the specified project.
+     *
+     * @param project Project whose cache to load. Must not be {@code null}.
+     * @param rulesVersion Version of the rules forms are validated by. Must not be {@code null}.
+     * @return Loaded cache or an empty cache if it cannot be loaded or has been saved for other rules.
+     * Never {@code null}.
+     */
+    static KnownCleanForms load(IProject project, String rulesVersion)
+    {
+        KnownCleanForms cache = new KnownCleanForms(
+            project.getWorkingLocation(CorePlugin.PLUGIN_ID).append(FILE_NAME).toFile().toPath(), rulesVersion);
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(cache.file))))
+        {
+            if (input.readInt() != FORMAT_VERSION || !rulesVersion.equals(input.readUTF()))
+            {
+                // Outdated entries are dropped when the cache is saved
+                cache.changed = true;
+                return cache;
+            }
+            int count = input.readInt();
+            for (int i = 0; i < count; i++)
+            {
+                String fqn = input.readUTF();
+                cache.revisions.put(fqn, input.readLong());
+            }
+        }
+        catch (NoSuchFileException e)
+        {
+            // The cache has not been saved yet
+        }
+        catch (IOException e)
+        {
+            cache.revisions.clear();
+            String message = "Unable to load known clean forms: " + cache.file; //$NON-NLS-1$
+            CorePlugin.log(CorePlugin.createWarningStatus(message, e));
+        }
+        return cache;
+    }
+
+    /**
+     * Checks if the form has been clean at the specified revision.
+     *
+     * @param fqn Fully qualified name of the form. Must not be {@code null}.
+     * @param revision Current revision of the form.
+     * @return {@code true} if the form has not been changed since it was found clean.
+     */
+    boolean isClean(String fqn, long revision)
+    {
+        Long cleanRevision = revisions.get(fqn);
+        return revision != UNKNOWN_REVISION && cleanRevision != null && cleanRevision == revision;
+    }
+
+    /**
+     * Remembers that the form is clean at the specified revision.
+     *
+     * @param fqn Fully qualified name of the form. Must not be {@code null}.
+     * @param revision Current revision of the form.
+     */
+    void markClean(String fqn, long revision)
+    {
+        if (revision == UNKNOWN_REVISION)
+        {
+            invalidate(fqn);
+            return;
+        }
+        Long oldRevision = revisions.put(fqn, revision);
+        if (oldRevision == null || oldRevision != revision)
+        {
+            changed = true;
+        }
+    }
+
+    /**
+     * Forgets the form so it is validated during the next run.
+     *
+     * @param fqn Fully qualified name of the form. Must not be {@code null}.
+     */
+    void invalidate(String fqn)
+    {
+        if (revisions.remove(fqn) != null)
+        {
+            changed = true;
+        }
+    }
+
+    /**
+     * Forgets all forms except the specified ones, so entries of removed forms do not accumulate.
+     *
+     * @param existingFqns Fully qualified names of all existing forms. Must not be {@code null}.
+     */
+    void retainAll(Collection<String> existingFqns)
+    {
+        if (revisions.keySet().retainAll(existingFqns))
+        {
+            changed = true;
+        }
+    }
+
+    /**
+     * Saves the cache if it has been changed since it was loaded.
+     */
+    void save()
+    {
+        if (!changed)
+        {
+            return;
+        }
+        try
+        {
+            Path tempFile = file.resolveSibling(FILE_NAME + ".tmp"); //$NON-NLS-1$
+            try (DataOutputStream output =
+                new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile))))
+            {
+                Map<String, Long> snapshot = Map.copyOf(revisions);
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(rulesVersion);
+                output.writeInt(snapshot.size());
+                for (Map.Entry<String, Long> entry : snapshot.entrySet())
+                {
+                    output.writeUTF(entry.getKey());
+                    output.writeLong(entry.getValue());
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            changed = false;
+        }
+        catch (IOException e)
+        {
+            String message = "Unable to save known clean forms: " + file; //$NON-NLS-1$
+            CorePlugin.log(CorePlugin.createWarningStatus(message, e));
+        }
+    }
+}
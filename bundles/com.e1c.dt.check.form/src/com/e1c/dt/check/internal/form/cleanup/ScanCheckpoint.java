@@ -0,0 +1,229 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.internal.form.cleanup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+
+import com.e1c.dt.check.internal.form.CorePlugin;
+import com.e1c.dt.check.internal.form.FormItemIdValidator.Result;
+
+/**
+ * Checkpoint of the cleanup scan that has not been completed.
+ * <p/>
+ * When the scan is cancelled, forms with issues found so far are saved along with the revisions of their content
+ * and detached results of their validation. The next scan takes the result of such a form from the checkpoint
+ * instead of validating it again unless the form has been modified since. Together with {@link KnownCleanForms},
+ * which keeps forms found clean, this lets the next scan resume: every form processed before the cancellation is
+ * skipped without validation regardless of the order in which forms are listed by the model.
+ * <p/>
+ * The checkpoint is stored in the working location of the project that is specific to this plugin and is deleted
+ * as soon as the scan is completed. Like in {@link KnownCleanForms}, the header of the file holds the version of
+ * the rules the forms have been validated by. A missing, unreadable or outdated file or a file saved for other rules
+ * results in an empty checkpoint.
+ * The checkpoint is not thread-safe for writing but can be read concurrently once loaded.
+ *
+ * @author Nikolay Martynov
+ */
+final class ScanCheckpoint
+{
+    /**
+     * Name of the file in the working location of the project.
+     */
+    private static final String FILE_NAME = "cleanup-scan-checkpoint.bin"; //$NON-NLS-1$
+
+    /**
+     * Version of the file format.
+     */
+    private static final int FORMAT_VERSION = 3;
+
+    private final Path file;
+
+    private final String rulesVersion;
+
+    private final Map<Long, Entry> entries = new LinkedHashMap<>();
+
+    private ScanCheckpoint(Path file, String rulesVersion)
+    {
+        this.file = file;
+        this.rulesVersion = rulesVersion;
+    }
+
+    /**
+     * Loads the checkpoint of the specified project.
+     *
+     * @param project Project whose checkpoint to load. Must not be {@code null}.
+     * @param rulesVersion Version of the rules forms are validated by. Must not be {@code null}.
+     * @return Loaded checkpoint or an empty checkpoint if it cannot be loaded or has been saved for other rules.
+     * Never {@code null}.
+     */
+    static ScanCheckpoint load(IProject project, String rulesVersion)
+    {
+        ScanCheckpoint checkpoint = new ScanCheckpoint(
+            project.getWorkingLocation(CorePlugin.PLUGIN_ID).append(FILE_NAME).toFile().toPath(), rulesVersion);
+        try (DataInputStream input =
+            new DataInputStream(new BufferedInputStream(Files.newInputStream(checkpoint.file))))
+        {
+            if (input.readInt() != FORMAT_VERSION || !rulesVersion.equals(input.readUTF()))
+            {
+                return checkpoint;
+            }
+            int count = input.readInt();
+            for (int i = 0; i < count; i++)
+            {
+                long formId = input.readLong();
+                long revision = input.readLong();
+                int itemCount = input.readInt();
+                int size = input.readInt();
+                int[] positions = new int[size];
+                int[] ids = new int[size];
+                boolean[] duplicates = new boolean[size];
+                for (int j = 0; j < size; j++)
+                {
+                    positions[j] = input.readInt();
+                    ids[j] = input.readInt();
+                    duplicates[j] = input.readBoolean();
+                }
+                checkpoint.entries.put(formId,
+                    new Entry(revision, Result.detached(positions, ids, duplicates, itemCount)));
+            }
+        }
+        catch (NoSuchFileException e)
+        {
+            // The previous scan has been completed
+        }
+        catch (IOException | IllegalArgumentException e)
+        {
+            checkpoint.entries.clear();
+            String message = "Unable to load cleanup scan checkpoint: " + checkpoint.file; //$NON-NLS-1$
+            CorePlugin.log(CorePlugin.createWarningStatus(message, e));
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Returns the result of the validation of the form saved by the previous scan.
+     *
+     * @param formId BM identifier of the form.
+     * @param revision Current revision of the form.
+     * @return Detached result of the validation or {@code null} if the form is not in the checkpoint
+     * or has been modified since.
+     */
+    Result getResult(long formId, long revision)
+    {
+        Entry entry = entries.get(formId);
+        return revision != KnownCleanForms.UNKNOWN_REVISION && entry != null && entry.revision == revision
+            ? entry.result : null;
+    }
+
+    /**
+     * Removes all forms from the checkpoint.
+     */
+    void clear()
+    {
+        entries.clear();
+    }
+
+    /**
+     * Adds the form with issues to the checkpoint.
+     *
+     * @param formId BM identifier of the form.
+     * @param revision Revision of the form at the moment of validation.
+     * @param result Detached result of the validation. Must not be {@code null}.
+     */
+    void add(long formId, long revision, Result result)
+    {
+        entries.put(formId, new Entry(revision, result));
+    }
+
+    /**
+     * Replaces the stored checkpoint with the forms added to this one.
+     */
+    void save()
+    {
+        try
+        {
+            Path tempFile = file.resolveSibling(FILE_NAME + ".tmp"); //$NON-NLS-1$
+            try (DataOutputStream output =
+                new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile))))
+            {
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(rulesVersion);
+                output.writeInt(entries.size());
+                for (Map.Entry<Long, Entry> entry : entries.entrySet())
+                {
+                    Result result = entry.getValue().result;
+                    output.writeLong(entry.getKey());
+                    output.writeLong(entry.getValue().revision);
+                    output.writeInt(result.getItemCount());
+                    output.writeInt(result.size());
+                    for (int i = 0; i < result.size(); i++)
+                    {
+                        output.writeInt(result.getPosition(i));
+                        output.writeInt(result.getId(i));
+                        output.writeBoolean(result.isDuplicate(i));
+                    }
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e)
+        {
+            String message = "Unable to save cleanup scan checkpoint: " + file; //$NON-NLS-1$
+            CorePlugin.log(CorePlugin.createWarningStatus(message, e));
+        }
+    }
+
+    /**
+     * Deletes the stored checkpoint since the scan has been completed.
+     */
+    void delete()
+    {
+        try
+        {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e)
+        {
+            String message = "Unable to delete cleanup scan checkpoint: " + file; //$NON-NLS-1$
+            CorePlugin.log(CorePlugin.createWarningStatus(message, e));
+        }
+    }
+
+    /*
+     * Saved state of the single form with issues
+     */
+    private static final class Entry
+    {
+        private final long revision;
+
+        private final Result result;
+
+        Entry(long revision, Result result)
+        {
+            this.revision = revision;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial implementation
+ *******************************************************************************/
+package com.e1c.dt.check.internal.md;
+
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+
+import com._1c.g5.v8.bm.core.IBmCrossReference;
+import com._1c.g5.v8.bm.core.IBmObject;
+import com._1c.g5.v8.bm.core.IBmTransaction;
+import com.e1c.dt.check.internal.md.CheckedCollections.Scope;
+import com.e1c.g5.v8.dt.check.context.CheckContextCollectingSession;
+
+/**
+ * Schedules the check for the holders of back references to the changed objects in case if the referencing collections
+ * of these holders are checked.
+ * <p/>
+ * All events of a single BM transaction are collected within one {@link CheckContextCollectingSession}, so the
+ * scheduler remembers the target URIs already walked and the holders already scheduled during the collection pass of
+ * the transaction. When many objects are removed or attached at once, references of the same target are walked once
+ * and the same holder (a configuration or a big subsystem) is passed to
+ * {@link CheckContextCollectingSession#addModelCheck(IBmObject)} once per transaction.
+ * <p/>
+ * The remembered state belongs to the transaction whose events are collected: as soon as the session is used for
+ * events of another transaction, the state is reset, so a session object reused by the framework never suppresses
+ * scheduling of later changes.
+ *
+ * @author Alexander Tretyakevich
+ */
+final class BackReferenceScheduler
+{
+    private final CheckedCollections checkedCollections;
+
+    private final DanglingReferenceLedger danglingReferences;
+
+    private final Map<CheckContextCollectingSession, SessionState> sessions =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Creates new scheduler.
+     *
+     * @param checkedCollections the checked collections dispatch table, cannot be {@code null}
+     * @param danglingReferences the ledger of the known dangling references, cannot be {@code null}
+     */
+    BackReferenceScheduler(CheckedCollections checkedCollections, DanglingReferenceLedger danglingReferences)
+    {
+        this.checkedCollections = checkedCollections;
+        this.danglingReferences = danglingReferences;
+    }
+
+    /**
+     * Schedules the check for the back reference holders of the specified target in case if collections of these
+     * holders are being checked.
+     *
+     * @param targetUri the URI of the changed object, cannot be {@code null}
+     * @param bmTransaction the current transaction, cannot be {@code null}
+     * @param contextSession the context collecting session, cannot be {@code null}
+     * @return the number of holders scheduled for the check by this call
+     */
+    int schedule(URI targetUri, IBmTransaction bmTransaction, CheckContextCollectingSession contextSession)
+    {
+        SessionState state = sessions.computeIfAbsent(contextSession, key -> new SessionState());
+        synchronized (state)
+        {
+            state.beginPass(bmTransaction);
+            if (!state.targetUris.add(targetUri))
+            {
+                // References of this target have already been walked within this session
+                return 0;
+            }
+
+            int scheduled = 0;
+            Collection<IBmCrossReference> references = bmTransaction.getReferences(targetUri);
+            for (IBmCrossReference reference : references)
+            {
+                // Reject untracked references by the feature first, so their holders are not resolved at all
+                Set<EClass> holderEClasses = checkedCollections.getHolderEClasses(reference.getFeature());
+                if (holderEClasses.isEmpty())
+                {
+                    continue;
+                }
+
+                IBmObject referenceHolder = reference.getObject();
+                if (referenceHolder == null || !holderEClasses.contains(referenceHolder.eClass()))
+                {
+                    // The object may be removed at the time the processing is being done so we simply ignore it,
+                    // as removed object is not a target for this check. Holders of other classes are not checked
+                    continue;
+                }
+
+                Scope scope = checkedCollections.getScope(referenceHolder, referenceHolder.bmGetTopObject());
+                if (scope != null && scope.isTracked(reference.getFeature()))
+                {
+                    // Only the slot holding the reference needs to be re-examined
+                    danglingReferences.markDirty(referenceHolder, reference.getFeature());
+
+                    // The back reference is checkable - we need to schedule the check for the corresponding
+                    // holder object
+                    if (state.holderIds.add(referenceHolder.bmGetId()))
+                    {
+                        contextSession.addModelCheck(referenceHolder);
+                        scheduled++;
+                    }
+                }
+            }
+            return scheduled;
+        }
+    }
+
+    /*
+     * Targets and holders processed within the collection pass of one transaction
+     */
+    private static final class SessionState
+    {
+        private final Set<URI> targetUris = new HashSet<>();
+
+        private final Set<Long> holderIds = new HashSet<>();
+
+        private WeakReference<IBmTransaction> transaction = new WeakReference<>(null);
+
+        /*
+         * Resets the state if events of another transaction are being collected
+         */
+        void beginPass(IBmTransaction bmTransaction)
+        {
+            if (transaction.get() != bmTransaction)
+            {
+                targetUris.clear();
+                holderIds.clear();
+                transaction = new WeakReference<>(bmTransaction);
+            }
+        }
+    }
+}
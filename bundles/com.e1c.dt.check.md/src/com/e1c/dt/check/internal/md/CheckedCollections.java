@@ -0,0 +1,351 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial implementation
+ *******************************************************************************/
+package com.e1c.dt.check.internal.md;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EStructuralFeature;
+
+import com._1c.g5.v8.bm.core.IBmObject;
+
+/**
+ * Precomputed dispatch table of the collections checked by {@link MdReferenceIntegrity}.
+ * <p/>
+ * The table is resolved by the classifier identifier of the top object {@link EClass} (and the classifier identifier
+ * of the containment {@link EClass} for nested holders) and answers the "is this feature tracked" question by the
+ * feature identifier of the holder {@link EClass}, so the lookups done for every checked object and every BM sub-event
+ * are plain array and bit set accesses.
+ *
+ * @author Alexander Tretyakevich
+ */
+final class CheckedCollections
+{
+    private final EClassTable<TopObjectScope> topObjectScopes;
+
+    private final List<TopObjectScope> orderedTopObjectScopes;
+
+    private final Map<EStructuralFeature, Set<EClass>> holderEClasses;
+
+    private CheckedCollections(Map<EClass, TopObjectScope> topObjectScopes,
+        Map<EStructuralFeature, Set<EClass>> holderEClasses)
+    {
+        this.topObjectScopes = new EClassTable<>(topObjectScopes);
+        this.orderedTopObjectScopes = List.copyOf(topObjectScopes.values());
+        this.holderEClasses = holderEClasses;
+    }
+
+    /**
+     * Creates new builder of the dispatch table.
+     *
+     * @return new builder, never {@code null}
+     */
+    static Builder builder()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Finds checked scope of the specified holder object.
+     *
+     * @param holder the holder object of the checked references, cannot be {@code null}
+     * @param topObject the top object of the holder, cannot be {@code null}
+     * @return the checked scope of the holder or {@code null} if the holder is not checked
+     */
+    Scope getScope(IBmObject holder, IBmObject topObject)
+    {
+        TopObjectScope topObjectScope = topObjectScopes.get(topObject.eClass());
+        if (topObjectScope == null)
+        {
+            return null;
+        }
+
+        if (topObject.bmGetId() == holder.bmGetId())
+        {
+            return topObjectScope.features;
+        }
+        return topObjectScope.containments.get(holder.eClass());
+    }
+
+    /**
+     * Returns {@link EClass}es of the holders in which the specified feature is checked. This reverse index allows to
+     * reject a cross reference by its feature before the holder object of the reference is resolved.
+     *
+     * @param feature the feature of the reference, cannot be {@code null}
+     * @return the holder {@link EClass}es, never {@code null}. The set is empty if the feature is not checked anywhere
+     */
+    Set<EClass> getHolderEClasses(EStructuralFeature feature)
+    {
+        Set<EClass> eClasses = holderEClasses.get(feature);
+        return eClasses == null ? Collections.emptySet() : eClasses;
+    }
+
+    /**
+     * Returns all checked top object scopes in the order of their declaration.
+     *
+     * @return the checked top object scopes, never {@code null}
+     */
+    Collection<TopObjectScope> getTopObjectScopes()
+    {
+        return orderedTopObjectScopes;
+    }
+
+    /**
+     * Checked features of the single holder {@link EClass}.
+     */
+    static final class Scope
+    {
+        private final EClass eClass;
+
+        private final EStructuralFeature[] features;
+
+        private final BitSet featureIds;
+
+        private Scope(EClass eClass, Collection<EStructuralFeature> features)
+        {
+            this.eClass = eClass;
+            this.features = features.toArray(new EStructuralFeature[features.size()]);
+            this.featureIds = new BitSet(eClass.getFeatureCount());
+            for (EStructuralFeature feature : features)
+            {
+                int featureId = eClass.getFeatureID(feature);
+                if (featureId < 0)
+                {
+                    throw new IllegalArgumentException("Feature " + feature.getName() //$NON-NLS-1$
+                        + " does not belong to " + eClass.getName()); //$NON-NLS-1$
+                }
+                featureIds.set(featureId);
+            }
+        }
+
+        /**
+         * Returns checked features of the holder in the order of their declaration.
+         *
+         * @return the checked features, never {@code null}. The returned array must not be modified
+         */
+        EStructuralFeature[] getFeatures()
+        {
+            return features;
+        }
+
+        /**
+         * Checks whether the specified feature of the holder is tracked.
+         *
+         * @param feature the feature to check, cannot be {@code null}
+         * @return {@code true} if the feature is checked, {@code false} otherwise
+         */
+        boolean isTracked(EStructuralFeature feature)
+        {
+            int featureId = eClass.getFeatureID(feature);
+            return featureId >= 0 && featureIds.get(featureId);
+        }
+    }
+
+    /**
+     * Checked scope of the single top object {@link EClass}.
+     */
+    static final class TopObjectScope
+    {
+        private final EClass topEClass;
+
+        private final Scope features;
+
+        private final EClassTable<Scope> containments;
+
+        private final Set<EClass> containmentEClasses;
+
+        private TopObjectScope(EClass topEClass, Scope features, Map<EClass, Scope> containments)
+        {
+            this.topEClass = topEClass;
+            this.features = features;
+            this.containments = new EClassTable<>(containments);
+            this.containmentEClasses = Collections.unmodifiableSet(containments.keySet());
+        }
+
+        /**
+         * Returns the top object {@link EClass}.
+         *
+         * @return the top object {@link EClass}, never {@code null}
+         */
+        EClass getTopEClass()
+        {
+            return topEClass;
+        }
+
+        /**
+         * Checks whether the top object itself holds checked features.
+         *
+         * @return {@code true} if the top object holds checked features, {@code false} otherwise
+         */
+        boolean hasFeatures()
+        {
+            return features != null;
+        }
+
+        /**
+         * Returns {@link EClass}es of the contained holders with checked features.
+         *
+         * @return the contained holder {@link EClass}es, never {@code null}
+         */
+        Set<EClass> getContainmentEClasses()
+        {
+            return containmentEClasses;
+        }
+    }
+
+    /**
+     * Builder of the {@link CheckedCollections}.
+     */
+    static final class Builder
+    {
+        private final Map<EClass, EStructuralFeature[]> topFeatures = new LinkedHashMap<>();
+
+        private final Map<EClass, Map<EClass, EStructuralFeature[]>> containments = new LinkedHashMap<>();
+
+        private Builder()
+        {
+        }
+
+        /**
+         * Registers checked features of the top object itself.
+         *
+         * @param topEClass the top object {@link EClass}, cannot be {@code null}
+         * @param features the checked features, cannot be {@code null}
+         * @return this builder, never {@code null}
+         */
+        Builder top(EClass topEClass, EStructuralFeature... features)
+        {
+            topFeatures.put(topEClass, features);
+            return this;
+        }
+
+        /**
+         * Registers checked features of the objects contained in the top object.
+         *
+         * @param topEClass the top object {@link EClass}, cannot be {@code null}
+         * @param containmentEClass the contained holder {@link EClass}, cannot be {@code null}
+         * @param features the checked features, cannot be {@code null}
+         * @return this builder, never {@code null}
+         */
+        Builder containment(EClass topEClass, EClass containmentEClass, EStructuralFeature... features)
+        {
+            containments.computeIfAbsent(topEClass, key -> new LinkedHashMap<>()).put(containmentEClass, features);
+            return this;
+        }
+
+        /**
+         * Builds the dispatch table.
+         *
+         * @return the dispatch table, never {@code null}
+         */
+        CheckedCollections build()
+        {
+            Map<EClass, TopObjectScope> scopes = new LinkedHashMap<>();
+            Map<EStructuralFeature, Set<EClass>> holderEClasses = new IdentityHashMap<>();
+            Set<EClass> topEClasses = new LinkedHashSet<>(topFeatures.keySet());
+            topEClasses.addAll(containments.keySet());
+            for (EClass topEClass : topEClasses)
+            {
+                EStructuralFeature[] features = topFeatures.get(topEClass);
+                Scope featuresScope = null;
+                if (features != null)
+                {
+                    featuresScope = new Scope(topEClass, List.of(features));
+                    index(holderEClasses, topEClass, features);
+                }
+
+                Map<EClass, Scope> containmentScopes = new LinkedHashMap<>();
+                containments.getOrDefault(topEClass, Collections.emptyMap())
+                    .forEach((containmentEClass, containmentFeatures) -> {
+                        containmentScopes.put(containmentEClass,
+                            new Scope(containmentEClass, List.of(containmentFeatures)));
+                        index(holderEClasses, containmentEClass, containmentFeatures);
+                    });
+
+                scopes.put(topEClass, new TopObjectScope(topEClass, featuresScope, containmentScopes));
+            }
+            holderEClasses.replaceAll((feature, eClasses) -> Set.copyOf(eClasses));
+            return new CheckedCollections(scopes, holderEClasses);
+        }
+
+        private static void index(Map<EStructuralFeature, Set<EClass>> holderEClasses, EClass holderEClass,
+            EStructuralFeature[] features)
+        {
+            for (EStructuralFeature feature : features)
+            {
+                holderEClasses.computeIfAbsent(feature, key -> new LinkedHashSet<>()).add(holderEClass);
+            }
+        }
+    }
+
+    /**
+     * Array based lookup table indexed by {@link EPackage} and {@link EClass#getClassifierID() classifier identifier}.
+     * Number of packages is expected to be very small, so they are matched by identity.
+     *
+     * @param <T> the type of values
+     */
+    private static final class EClassTable<T>
+    {
+        private final EPackage[] packages;
+
+        private final Object[][] values;
+
+        EClassTable(Map<EClass, T> source)
+        {
+            List<EPackage> packageList = new ArrayList<>();
+            for (EClass eClass : source.keySet())
+            {
+                if (!packageList.contains(eClass.getEPackage()))
+                {
+                    packageList.add(eClass.getEPackage());
+                }
+            }
+
+            packages = packageList.toArray(new EPackage[packageList.size()]);
+            values = new Object[packages.length][];
+            for (int i = 0; i < packages.length; i++)
+            {
+                values[i] = new Object[packages[i].getEClassifiers().size()];
+            }
+            source.forEach((eClass, value) -> values[packageList.indexOf(eClass.getEPackage())][eClass
+                .getClassifierID()] = value);
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(EClass eClass)
+        {
+            EPackage ePackage = eClass.getEPackage();
+            for (int i = 0; i < packages.length; i++)
+            {
+                if (packages[i] == ePackage)
+                {
+                    Object[] packageValues = values[i];
+                    int classifierId = eClass.getClassifierID();
+                    return classifierId >= 0 && classifierId < packageValues.length ? (T)packageValues[classifierId]
+                        : null;
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -16,7 +16,9 @@ import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Plugin;
 import org.eclipse.core.runtime.Status;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceRegistration;
 
+import com.e1c.dt.check.md.IMdReferenceIntegrityScanner;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 
@@ -34,6 +36,8 @@ public class CorePlugin
 
     private Injector injector;
 
+    private ServiceRegistration<IMdReferenceIntegrityScanner> scannerRegistration;
+
     /**
      * Returns the shared instance
      *
@@ -110,6 +114,8 @@ public class CorePlugin
 
         plugin = this;
 
+        scannerRegistration =
+            bundleContext.registerService(IMdReferenceIntegrityScanner.class, new MdReferenceIntegrityScanner(), null);
     }
 
     /*
@@ -119,6 +125,12 @@ public class CorePlugin
     @Override
     public void stop(BundleContext bundleContext) throws Exception
     {
+        if (scannerRegistration != null)
+        {
+            scannerRegistration.unregister();
+            scannerRegistration = null;
+        }
+
         plugin = null;
         injector = null;
 
@@ -0,0 +1,368 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial implementation
+ *******************************************************************************/
+package com.e1c.dt.check.internal.md;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.ecore.util.InternalEList;
+
+import com._1c.g5.v8.bm.core.IBmObject;
+import com.e1c.g5.v8.dt.check.EIssue;
+
+/**
+ * Per-project ledger of the known dangling references of the checked holders.
+ * <p/>
+ * For each holder which has been checked at least once the ledger keeps the issues found per checked feature slot.
+ * Context collectors mark the slots which may have changed, and the next check of the holder re-examines only these
+ * slots while issues of the other slots are taken from the ledger. A known issue is taken from the ledger only if
+ * the slot still holds the same lost reference at the same position, see {@link KnownIssue#isActual}, so a change
+ * which has not been noticed by the context collectors never leaves a stale issue.
+ * <p/>
+ * A slot which has not been marked is proven unchanged only as long as no MD object has been removed since the last
+ * complete scan of the holder: a removal turns references to the removed object into proxies without changing
+ * the holders, and the context collectors may not reach every slot holding such a reference, e.g. a holder of
+ * another project. So the removals are counted and the first check of the holder after a removal rescans it
+ * completely.
+ * <p/>
+ * The holder is rescanned completely when:
+ * <ul>
+ * <li>it has not been scanned yet or its record has been dropped from the ledger,</li>
+ * <li>it has been explicitly marked for the full rescan,</li>
+ * <li>an MD object has been removed since the last complete scan of the holder,</li>
+ * <li>the check is invoked for the holder without any marked slots, i.e. the validation was triggered not by
+ * the context collectors of the check but by a full revalidation or by other reasons.</li>
+ * </ul>
+ * Ledgers are kept per BM engine, so the holder identifiers are unique within the ledger, and are dropped together
+ * with the engine. Records are grouped by the top object of the holder: the group is dropped when the top object is
+ * removed, and at most {@value #MAX_TOP_OBJECTS} least recently used groups are kept per engine.
+ *
+ * @author Alexander Tretyakevich
+ */
+final class DanglingReferenceLedger
+{
+    /**
+     * Maximum number of top objects whose holders are kept in the ledger of one engine.
+     */
+    static final int MAX_TOP_OBJECTS = 10000;
+
+    private final Map<Object, EngineLedger> engineLedgers = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Number of the removals of MD objects noticed by the context collectors.
+     */
+    private final AtomicLong removals = new AtomicLong();
+
+    /**
+     * Marks the specified feature slot of the holder as a subject to re-examination during the next check.
+     * Holders which are not in the ledger are rescanned completely anyway, so they are not added.
+     *
+     * @param holder the holder object, cannot be {@code null}
+     * @param feature the changed feature of the holder, cannot be {@code null}
+     */
+    void markDirty(IBmObject holder, EStructuralFeature feature)
+    {
+        int featureId = holder.eClass().getFeatureID(feature);
+        if (featureId < 0)
+        {
+            return;
+        }
+
+        HolderRecord record = getRecord(holder, false);
+        if (record != null)
+        {
+            synchronized (record)
+            {
+                record.dirtyFeatureIds.set(featureId);
+            }
+        }
+    }
+
+    /**
+     * Marks the holder as a subject to complete re-examination during the next check.
+     *
+     * @param holder the holder object, cannot be {@code null}
+     */
+    void markAllDirty(IBmObject holder)
+    {
+        HolderRecord record = getRecord(holder, false);
+        if (record != null)
+        {
+            synchronized (record)
+            {
+                record.fullScan = true;
+            }
+        }
+    }
+
+    /**
+     * Forgets all holders of the removed top object. Slots of the other holders may hold references to the removed
+     * object now, so they are not replayed until the holders are rescanned completely.
+     *
+     * @param topObjectUri the URI of the removed top object, cannot be {@code null}
+     */
+    void forget(URI topObjectUri)
+    {
+        removals.incrementAndGet();
+        URI uri = topObjectUri.trimFragment();
+        synchronized (engineLedgers)
+        {
+            for (EngineLedger ledger : engineLedgers.values())
+            {
+                ledger.forget(uri);
+            }
+        }
+    }
+
+    /**
+     * Starts the check of the holder and returns identifiers of the features of the holder to be re-examined.
+     * The marked slots are consumed by this call.
+     *
+     * @param holder the holder object, cannot be {@code null}
+     * @return the bit set of the feature identifiers of the holder {@link org.eclipse.emf.ecore.EClass} to
+     * re-examine or {@code null} if all checked features must be re-examined
+     */
+    BitSet beginCheck(IBmObject holder)
+    {
+        // Read before the scan, so a removal during the scan forces the next check to rescan the holder again
+        long currentRemovals = removals.get();
+        HolderRecord record = getRecord(holder, true);
+        synchronized (record)
+        {
+            BitSet dirtyFeatureIds = record.dirtyFeatureIds;
+            boolean fullScan = !record.scanned || record.fullScan || dirtyFeatureIds.isEmpty()
+                || record.removals != currentRemovals;
+            record.dirtyFeatureIds = new BitSet();
+            record.fullScan = false;
+            if (fullScan)
+            {
+                record.issues.clear();
+                record.scanned = true;
+                record.removals = currentRemovals;
+                return null;
+            }
+            return dirtyFeatureIds;
+        }
+    }
+
+    /**
+     * Returns the known issues of the feature slot of the holder.
+     *
+     * @param holder the holder object, cannot be {@code null}
+     * @param featureId the feature identifier of the holder {@link org.eclipse.emf.ecore.EClass}
+     * @return the known issues of the slot, never {@code null}
+     */
+    List<KnownIssue> getIssues(IBmObject holder, int featureId)
+    {
+        HolderRecord record = getRecord(holder, true);
+        synchronized (record)
+        {
+            List<KnownIssue> issues = record.issues.get(featureId);
+            return issues == null ? Collections.emptyList() : issues;
+        }
+    }
+
+    /**
+     * Records the issues found in the feature slot of the holder replacing the previous ones.
+     *
+     * @param holder the holder object, cannot be {@code null}
+     * @param featureId the feature identifier of the holder {@link org.eclipse.emf.ecore.EClass}
+     * @param issues the found issues, cannot be {@code null}
+     */
+    void setIssues(IBmObject holder, int featureId, List<KnownIssue> issues)
+    {
+        HolderRecord record = getRecord(holder, true);
+        synchronized (record)
+        {
+            if (issues.isEmpty())
+            {
+                record.issues.remove(featureId);
+            }
+            else
+            {
+                record.issues.put(featureId, List.copyOf(issues));
+            }
+        }
+    }
+
+    private HolderRecord getRecord(IBmObject holder, boolean create)
+    {
+        EngineLedger ledger = engineLedgers.get(holder.bmGetEngine());
+        if (ledger == null)
+        {
+            if (!create)
+            {
+                return null;
+            }
+            ledger = engineLedgers.computeIfAbsent(holder.bmGetEngine(), key -> new EngineLedger());
+        }
+        return ledger.getRecord(holder, create);
+    }
+
+    /**
+     * Issue found in the feature slot of the holder along with the lost reference it has been found for.
+     */
+    static final class KnownIssue
+    {
+        private final EIssue issue;
+
+        private final int index;
+
+        private final URI proxyUri;
+
+        /**
+         * Creates new known issue.
+         *
+         * @param issue the issue, cannot be {@code null}
+         * @param index the index of the lost reference in the collection or {@code -1} for the single-valued feature
+         * @param proxyUri the URI of the lost reference, cannot be {@code null}
+         */
+        KnownIssue(EIssue issue, int index, URI proxyUri)
+        {
+            this.issue = issue;
+            this.index = index;
+            this.proxyUri = proxyUri;
+        }
+
+        /**
+         * Returns the issue.
+         *
+         * @return the issue, never {@code null}
+         */
+        EIssue getIssue()
+        {
+            return issue;
+        }
+
+        /**
+         * Checks that the value of the feature still holds the same lost reference at the same position.
+         * The value is read without resolving proxies.
+         *
+         * @param value the current value of the feature, can be {@code null}
+         * @return {@code true} if the issue is still actual
+         */
+        boolean isActual(Object value)
+        {
+            Object current = value;
+            if (index >= 0)
+            {
+                if (!(value instanceof List) || index >= ((List<?>)value).size())
+                {
+                    return false;
+                }
+                current = value instanceof InternalEList ? ((InternalEList<?>)value).basicGet(index)
+                    : ((List<?>)value).get(index);
+            }
+            return current instanceof EObject && ((EObject)current).eIsProxy()
+                && proxyUri.equals(((InternalEObject)current).eProxyURI());
+        }
+    }
+
+    /*
+     * Known state of the holders of one engine grouped by their top objects
+     */
+    private static final class EngineLedger
+    {
+        private final Map<Long, TopObjectRecord> topObjects = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, TopObjectRecord> eldest)
+            {
+                if (size() > MAX_TOP_OBJECTS)
+                {
+                    topObjectIds.remove(eldest.getValue().uri);
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        private final Map<URI, Long> topObjectIds = new HashMap<>();
+
+        synchronized HolderRecord getRecord(IBmObject holder, boolean create)
+        {
+            IBmObject topObject = holder.bmGetTopObject();
+            TopObjectRecord topObjectRecord = topObjects.get(topObject.bmGetId());
+            if (topObjectRecord == null)
+            {
+                if (!create)
+                {
+                    return null;
+                }
+                topObjectRecord = new TopObjectRecord(EcoreUtil.getURI(topObject).trimFragment());
+                topObjects.put(topObject.bmGetId(), topObjectRecord);
+                topObjectIds.put(topObjectRecord.uri, topObject.bmGetId());
+            }
+            HolderRecord record = topObjectRecord.holders.get(holder.bmGetId());
+            if (record == null && create)
+            {
+                record = new HolderRecord();
+                topObjectRecord.holders.put(holder.bmGetId(), record);
+            }
+            return record;
+        }
+
+        synchronized void forget(URI topObjectUri)
+        {
+            Long topObjectId = topObjectIds.remove(topObjectUri);
+            if (topObjectId != null)
+            {
+                topObjects.remove(topObjectId);
+            }
+        }
+    }
+
+    /*
+     * Known state of the holders of the single top object
+     */
+    private static final class TopObjectRecord
+    {
+        private final URI uri;
+
+        private final Map<Long, HolderRecord> holders = new HashMap<>();
+
+        TopObjectRecord(URI uri)
+        {
+            this.uri = uri;
+        }
+    }
+
+    /*
+     * Known state of the single holder
+     */
+    private static final class HolderRecord
+    {
+        private final Map<Integer, List<KnownIssue>> issues = new HashMap<>();
+
+        private BitSet dirtyFeatureIds = new BitSet();
+
+        private boolean fullScan;
+
+        private boolean scanned;
+
+        private long removals;
+    }
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial implementation
+ *******************************************************************************/
+package com.e1c.dt.check.internal.md;
+
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.InternalEList;
+
+/**
+ * Finds lost references in values of the checked features. Values are read without resolving proxies.
+ *
+ * @author Alexander Tretyakevich
+ */
+final class LostReferences
+{
+    private LostReferences()
+    {
+    }
+
+    /**
+     * Visits all lost references of the specified value of the feature.
+     *
+     * @param feature the checked feature, cannot be {@code null}
+     * @param value the value of the feature, can be {@code null}
+     * @param visitor the visitor of the found lost references, cannot be {@code null}
+     */
+    static void scan(EStructuralFeature feature, Object value, Visitor visitor)
+    {
+        if (!feature.isMany())
+        {
+            if (value instanceof EObject && ((EObject)value).eIsProxy())
+            {
+                visitor.visit((EObject)value, -1);
+            }
+            return;
+        }
+
+        if (!(value instanceof List))
+        {
+            return;
+        }
+
+        List<?> objects = (List<?>)value;
+        InternalEList<?> internalObjects = objects instanceof InternalEList ? (InternalEList<?>)objects : null;
+        for (int idx = 0, size = objects.size(); idx < size; idx++)
+        {
+            Object collectionObject = internalObjects != null ? internalObjects.basicGet(idx) : objects.get(idx);
+            if (collectionObject instanceof EObject && ((EObject)collectionObject).eIsProxy())
+            {
+                visitor.visit((EObject)collectionObject, idx);
+            }
+        }
+    }
+
+    /**
+     * Visitor of the found lost references.
+     */
+    @FunctionalInterface
+    interface Visitor
+    {
+        /**
+         * Visits the found lost reference.
+         *
+         * @param proxy the proxy of the lost object, never {@code null}
+         * @param index the index of the reference in the collection or {@code -1} for the single-valued feature
+         */
+        void visit(EObject proxy, int index);
+    }
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (C) 2022-2025, 1C-Soft LLC and others.
+ * Copyright (C) 2022-2026, 1C-Soft LLC and others.
  *
  * This program and the accompanying materials are made
  * available under the terms of the Eclipse Public License 2.0
@@ -76,29 +76,32 @@ import static com._1c.g5.v8.dt.scc.model.StandaloneContentPackage.Literals.STAND
 import static com._1c.g5.v8.dt.scc.model.StandaloneContentPackage.Literals.STANDALONE_CONTENT_UNUSED_ITEM;
 import static com._1c.g5.v8.dt.scc.model.StandaloneContentPackage.Literals.STANDALONE_CONTENT_USED_ITEM;
 
-import java.text.MessageFormat;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.common.util.URI;
 import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
 import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.osgi.util.NLS;
 
-import com._1c.g5.v8.bm.core.IBmCrossReference;
 import com._1c.g5.v8.bm.core.IBmObject;
 import com._1c.g5.v8.bm.core.IBmTransaction;
 import com._1c.g5.v8.bm.core.event.BmAssociationEvent;
 import com._1c.g5.v8.bm.core.event.BmSubEvent;
 import com._1c.g5.v8.dt.metadata.mdclass.MdClassPackage;
+import com.e1c.dt.check.common.metrics.MeasuredCheck;
+import com.e1c.dt.check.common.metrics.ContextCollection;
+import com.e1c.dt.check.internal.md.CheckedCollections.Scope;
+import com.e1c.dt.check.internal.md.CheckedCollections.TopObjectScope;
+import com.e1c.dt.check.internal.md.DanglingReferenceLedger.KnownIssue;
 import com.e1c.g5.v8.dt.check.EIssue;
-import com.e1c.g5.v8.dt.check.ICheck;
 import com.e1c.g5.v8.dt.check.ICheckDefinition;
 import com.e1c.g5.v8.dt.check.ICheckParameters;
 import com.e1c.g5.v8.dt.check.ICheckResultAcceptor;
@@ -115,12 +118,12 @@ import com.e1c.g5.v8.dt.check.settings.IssueSeverity;
  * @author Alexander Tretyakevich
  */
 public final class MdReferenceIntegrity
-    implements ICheck
+    extends MeasuredCheck
 {
     // @formatter:off
-    private static final Map<EClass, CheckDef> CHECKED_COLLECTIONS = Map.of(
-        SUBSYSTEM, new CheckDef(Set.of(SUBSYSTEM__CONTENT, SUBSYSTEM__SUBSYSTEMS)),
-        CONFIGURATION, new CheckDef(Set.of(
+    static final CheckedCollections CHECKED_COLLECTIONS = CheckedCollections.builder()
+        .top(SUBSYSTEM, SUBSYSTEM__CONTENT, SUBSYSTEM__SUBSYSTEMS)
+        .top(CONFIGURATION,
             CONFIGURATION__ACCOUNTING_REGISTERS,
             CONFIGURATION__ACCUMULATION_REGISTERS,
             CONFIGURATION__BOTS,
@@ -168,24 +171,31 @@ public final class MdReferenceIntegrity
             CONFIGURATION__WEB_SERVICES,
             CONFIGURATION__WEB_SOCKET_CLIENTS,
             CONFIGURATION__WS_REFERENCES,
-            CONFIGURATION__XDTO_PACKAGES)),
-        COMMON_ATTRIBUTE, new CheckDef(Map.of(
-            COMMON_ATTRIBUTE_CONTENT_ITEM,
-                Set.of(COMMON_ATTRIBUTE_CONTENT_ITEM__METADATA))),
-        EXCHANGE_PLAN, new CheckDef(Map.of(
-            EXCHANGE_PLAN_CONTENT_ITEM,
-                Set.of(EXCHANGE_PLAN_CONTENT_ITEM__MD_OBJECT))),
-        STANDALONE_CONTENT, new CheckDef(Map.of(
-            STANDALONE_CONTENT_USED_ITEM,
-                Set.of(STANDALONE_CONTENT_MD_OBJECT_AWARE__METADATA),
-            STANDALONE_CONTENT_UNUSED_ITEM,
-                Set.of(STANDALONE_CONTENT_MD_OBJECT_AWARE__METADATA),
-            STANDALONE_CONTENT_PRIORITY_ITEM,
-                Set.of(STANDALONE_CONTENT_MD_OBJECT_AWARE__METADATA))));
+            CONFIGURATION__XDTO_PACKAGES)
+        .containment(COMMON_ATTRIBUTE, COMMON_ATTRIBUTE_CONTENT_ITEM,
+            COMMON_ATTRIBUTE_CONTENT_ITEM__METADATA)
+        .containment(EXCHANGE_PLAN, EXCHANGE_PLAN_CONTENT_ITEM,
+            EXCHANGE_PLAN_CONTENT_ITEM__MD_OBJECT)
+        .containment(STANDALONE_CONTENT, STANDALONE_CONTENT_USED_ITEM,
+            STANDALONE_CONTENT_MD_OBJECT_AWARE__METADATA)
+        .containment(STANDALONE_CONTENT, STANDALONE_CONTENT_UNUSED_ITEM,
+            STANDALONE_CONTENT_MD_OBJECT_AWARE__METADATA)
+        .containment(STANDALONE_CONTENT, STANDALONE_CONTENT_PRIORITY_ITEM,
+            STANDALONE_CONTENT_MD_OBJECT_AWARE__METADATA)
+        .build();
     // @formatter:on
 
+    private static final String CHECK_ID = "md-reference-intergrity"; //$NON-NLS-1$
+
+    private static final AtomicLong VISITED_FEATURES = new AtomicLong();
+
+    private final DanglingReferenceLedger danglingReferences = new DanglingReferenceLedger();
+
+    private final BackReferenceScheduler backReferenceScheduler =
+        new BackReferenceScheduler(CHECKED_COLLECTIONS, danglingReferences);
+
     @Override
-    public void check(Object object, ICheckResultAcceptor resultRegistrar, ICheckParameters parameters,
+    protected void doCheck(Object object, ICheckResultAcceptor resultRegistrar, ICheckParameters parameters,
         IProgressMonitor progressMonitor)
     {
         if (!(object instanceof IBmObject))
@@ -194,32 +204,64 @@ public final class MdReferenceIntegrity
         }
 
         IBmObject bmObject = (IBmObject)object;
-        IBmObject topBmObject = bmObject.bmGetTopObject();
-        boolean isTopTarget = topBmObject.bmGetId() == bmObject.bmGetId();
-
-        CheckDef checkDef = CHECKED_COLLECTIONS.get(topBmObject.eClass());
-        if (checkDef == null)
+        IBmObject topObject = bmObject.bmGetTopObject();
+        Scope scope = CHECKED_COLLECTIONS.getScope(bmObject, topObject);
+        if (scope == null)
         {
             return;
         }
 
-        Collection<EStructuralFeature> checkedFeatures;
-        if (isTopTarget)
-        {
-            checkedFeatures = checkDef.features;
-        }
-        else
+        BitSet dirtyFeatureIds = danglingReferences.beginCheck(bmObject);
+        try
         {
-            checkedFeatures = checkDef.containments.get(bmObject.eClass());
-        }
+            EStructuralFeature[] features = scope.getFeatures();
+            List<EStructuralFeature> scannedFeatures = new ArrayList<>(features.length);
+            for (EStructuralFeature feature : features)
+            {
+                if (dirtyFeatureIds == null || dirtyFeatureIds.get(bmObject.eClass().getFeatureID(feature)))
+                {
+                    scannedFeatures.add(feature);
+                }
+            }
 
-        if (checkedFeatures != null)
-        {
-            for (EStructuralFeature feature : checkedFeatures)
+            List<List<KnownIssue>> scannedIssues = scanFeatures(bmObject, scannedFeatures);
+
+            int scannedIdx = 0;
+            for (EStructuralFeature feature : features)
             {
-                checkMdObjectReferences((EObject)object, feature, resultRegistrar);
+                int featureId = bmObject.eClass().getFeatureID(feature);
+                List<KnownIssue> issues;
+                if (scannedIdx < scannedFeatures.size() && scannedFeatures.get(scannedIdx) == feature)
+                {
+                    issues = scannedIssues.get(scannedIdx++);
+                    danglingReferences.setIssues(bmObject, featureId, issues);
+                    VISITED_FEATURES.incrementAndGet();
+                }
+                else
+                {
+                    // The slot has not been marked as changed and no MD object has been removed since the last check,
+                    // the known issues are replayed as long as the slot still holds the same lost references
+                    issues = danglingReferences.getIssues(bmObject, featureId);
+                    if (!issues.isEmpty() && !isActual(issues, bmObject.eGet(feature, false)))
+                    {
+                        issues = scanFeatureValue(feature, bmObject.eGet(feature, false));
+                        danglingReferences.setIssues(bmObject, featureId, issues);
+                        VISITED_FEATURES.incrementAndGet();
+                    }
+                }
+
+                for (KnownIssue issue : issues)
+                {
+                    resultRegistrar.addIssue(bmObject, issue.getIssue());
+                }
             }
         }
+        catch (RuntimeException e)
+        {
+            // The ledger may be left inconsistent, so the next check has to rescan the holder completely
+            danglingReferences.markAllDirty(bmObject);
+            throw e;
+        }
     }
 
     @Override
@@ -229,24 +271,20 @@ public final class MdReferenceIntegrity
         definition.addCheckedModelObjects(MdClassPackage.Literals.MD_OBJECT, true, Collections.emptySet());
 
         // Add explicit tracking and checking for collections
-        for (Entry<EClass, CheckDef> entry : CHECKED_COLLECTIONS.entrySet())
+        for (TopObjectScope topObjectScope : CHECKED_COLLECTIONS.getTopObjectScopes())
         {
-            EClass topObjectEClass = entry.getKey();
-            CheckDef checkDef = entry.getValue();
-
-            if (checkDef.containments != null)
-            {
-                // Add tracked containment types
-                definition.addCheckedModelObjects(topObjectEClass, checkDef.features != null,
-                    checkDef.containments.keySet());
-            }
+            // Add tracked containment types
+            definition.addCheckedModelObjects(topObjectScope.getTopEClass(), topObjectScope.hasFeatures(),
+                topObjectScope.getContainmentEClasses());
         }
 
-        definition.addModelAssociationContextCollector(new ObjectAssociationChangeContextCollector(),
+        definition.addModelAssociationContextCollector(
+            new ObjectAssociationChangeContextCollector(backReferenceScheduler), MdClassPackage.Literals.MD_OBJECT);
+        definition.addModelFeatureChangeContextCollector(
+            new ObjectCollectionFeatureChangeContextCollector(danglingReferences),
             MdClassPackage.Literals.MD_OBJECT);
-        definition.addModelFeatureChangeContextCollector(new ObjectCollectionFeatureChangeContextCollector(),
-            MdClassPackage.Literals.MD_OBJECT);
-        definition.addModelRemovalContextCollector(new ObjectRemovalContextCollector(),
+        definition.addModelRemovalContextCollector(
+            new ObjectRemovalContextCollector(backReferenceScheduler, danglingReferences),
             MdClassPackage.Literals.MD_OBJECT);
 
         definition.setTitle(Messages.MdReferenceIntegrity_Title);
@@ -254,98 +292,84 @@ public final class MdReferenceIntegrity
         definition.setDefaultSeverity(IssueSeverity.CRITICAL);
     }
 
+    /**
+     * Returns the total number of the checked features which have been actually scanned by this check since start.
+     * Features whose known issues are taken from the ledger are not counted. Intended for diagnostics and tests.
+     *
+     * @return the number of scanned features
+     */
+    public static long getVisitedFeatureCount()
+    {
+        return VISITED_FEATURES.get();
+    }
+
     @Override
     public String getCheckId()
     {
-        return "md-reference-intergrity"; //$NON-NLS-1$
+        return CHECK_ID;
     }
 
     /*
-     * Checks the specified collection of MD Objects being specified using the profided structural feature
+     * Scans the specified features of the holder and returns found issues in the order of the features
      */
-    @SuppressWarnings("unchecked")
-    private void checkMdObjectReferences(EObject object, EStructuralFeature feature,
-        ICheckResultAcceptor resultRegistrar)
+    private static List<List<KnownIssue>> scanFeatures(EObject object, List<EStructuralFeature> features)
     {
-        if (feature.isMany())
+        List<List<KnownIssue>> issues = new ArrayList<>(features.size());
+        for (EStructuralFeature feature : features)
         {
-            EList<? extends EObject> objects = (EList<? extends EObject>)object.eGet(feature);
-            if (objects != null)
-            {
-                int idx = 0;
-                for (EObject collectionObject : objects)
-                {
-                    if (collectionObject.eIsProxy())
-                    {
-                        // The lost reference is found - need to report
-                        EIssue issue = new EIssue(MessageFormat.format(Messages.MdReferenceIntegrity_LostReference_Many,
-                            feature.getName(), EcoreUtil.getURI(collectionObject), idx), feature, idx);
-                        resultRegistrar.addIssue(object, issue);
-                    }
+            issues.add(scanFeatureValue(feature, object.eGet(feature, false)));
+        }
+        return issues;
+    }
 
-                    idx++;
-                }
+    /*
+     * Checks the specified value of the structural feature without resolving proxies: collections are read by index
+     * through their basic view, so no resolution is attempted and no iterator is allocated
+     */
+    private static List<KnownIssue> scanFeatureValue(EStructuralFeature feature, Object value)
+    {
+        List<KnownIssue> issues = new ArrayList<>(0);
+        LostReferences.scan(feature, value, (proxy, idx) -> {
+            // The lost reference is found - need to report
+            URI proxyUri = ((InternalEObject)proxy).eProxyURI();
+            if (idx < 0)
+            {
+                issues.add(new KnownIssue(new EIssue(
+                    formatLostReference(Messages.MdReferenceIntegrity_LostReference_Single, feature, proxyUri, 0),
+                    feature), idx, proxyUri));
             }
-        }
-        else
-        {
-            EObject value = (EObject)object.eGet(feature);
-            if (value != null && value.eIsProxy())
+            else
             {
-                // The lost reference is found - need to report
-                EIssue issue = new EIssue(MessageFormat.format(Messages.MdReferenceIntegrity_LostReference_Single,
-                    feature.getName(), EcoreUtil.getURI(value), 0), feature);
-                resultRegistrar.addIssue(object, issue);
+                issues.add(new KnownIssue(new EIssue(
+                    formatLostReference(Messages.MdReferenceIntegrity_LostReference_Many, feature, proxyUri, idx),
+                    feature, idx), idx, proxyUri));
             }
-        }
+        });
+        return issues.isEmpty() ? Collections.emptyList() : issues;
     }
 
     /*
-     * Schedules the check for the back reference holder in case if collections of this holder are being
-     * checked by this check
+     * Checks that all known issues of the slot are still actual for the current value of the feature
      */
-    private static void scheduleCheckIfFeaturesAreTracked(URI targetUri, IBmTransaction bmTransaction,
-        CheckContextCollectingSession contextSession)
+    private static boolean isActual(List<KnownIssue> issues, Object value)
     {
-        Collection<IBmCrossReference> references = bmTransaction.getReferences(targetUri);
-        if (!references.isEmpty())
+        for (KnownIssue issue : issues)
         {
-            for (IBmCrossReference reference : references)
+            if (!issue.isActual(value))
             {
-                IBmObject referenceHolder = reference.getObject();
-                if (referenceHolder == null)
-                {
-                    // The object may be removed at the time the processing is being done so we simply ignore it,
-                    // as removed object is not a target for this check
-                    continue;
-                }
-
-                IBmObject topBmObject = referenceHolder.bmGetTopObject();
-                boolean isTopTarget = topBmObject.bmGetId() == referenceHolder.bmGetId();
-                CheckDef checkDef = CHECKED_COLLECTIONS.get(topBmObject.eClass());
-                if (checkDef == null)
-                {
-                    continue;
-                }
-
-                Collection<EStructuralFeature> checkedFeatures;
-                if (isTopTarget)
-                {
-                    checkedFeatures = checkDef.features;
-                }
-                else
-                {
-                    checkedFeatures = checkDef.containments.get(referenceHolder.eClass());
-                }
-
-                if (checkedFeatures != null && checkedFeatures.contains(reference.getFeature()))
-                {
-                    // The back reference is checkable - we need to schedule the check for the corresponding
-                    // top object
-                    contextSession.addModelCheck(referenceHolder);
-                }
+                return false;
             }
         }
+        return true;
+    }
+
+    /*
+     * Formats the lost reference message. The proxy URI is taken as is and NLS binding is used instead of
+     * MessageFormat, so no pattern parsing and URI calculation is done per found lost reference
+     */
+    private static String formatLostReference(String pattern, EStructuralFeature feature, URI proxyUri, int idx)
+    {
+        return NLS.bind(pattern, new Object[] { feature.getName(), proxyUri, Integer.toString(idx) });
     }
 
     /*
@@ -355,6 +379,12 @@ public final class MdReferenceIntegrity
     private static final class ObjectAssociationChangeContextCollector
         implements OnModelObjectAssociationContextCollector
     {
+        private final BackReferenceScheduler backReferenceScheduler;
+
+        ObjectAssociationChangeContextCollector(BackReferenceScheduler backReferenceScheduler)
+        {
+            this.backReferenceScheduler = backReferenceScheduler;
+        }
 
         @Override
         public void collectContextOnObjectAssociation(IBmObject bmObject, BmSubEvent bmEvent,
@@ -365,8 +395,13 @@ public final class MdReferenceIntegrity
                 // At the moment we are checking only top object references
             }
 
-            IBmTransaction bmTransaction = bmObject.bmGetEngine().getCurrentTransaction();
-            scheduleCheckIfFeaturesAreTracked(EcoreUtil.getURI(bmObject), bmTransaction, contextSession);
+            try (ContextCollection collection = ContextCollection.start(CHECK_ID, getClass()))
+            {
+                collection.topObject(bmObject.bmGetTopObject().bmGetId());
+                IBmTransaction bmTransaction = bmObject.bmGetEngine().getCurrentTransaction();
+                collection.scheduled(
+                    backReferenceScheduler.schedule(EcoreUtil.getURI(bmObject), bmTransaction, contextSession));
+            }
         }
     }
 
@@ -378,74 +413,66 @@ public final class MdReferenceIntegrity
     private static final class ObjectCollectionFeatureChangeContextCollector
         implements OnModelFeatureChangeContextCollector
     {
+        private final DanglingReferenceLedger danglingReferences;
+
+        ObjectCollectionFeatureChangeContextCollector(DanglingReferenceLedger danglingReferences)
+        {
+            this.danglingReferences = danglingReferences;
+        }
+
         @Override
         public void collectContextOnFeatureChange(IBmObject bmObject, EStructuralFeature feature, BmSubEvent bmEvent,
             CheckContextCollectingSession contextSession)
         {
             IBmObject topBmObject = bmObject.bmGetTopObject();
-            CheckDef checkDef = CHECKED_COLLECTIONS.get(topBmObject.eClass());
-            if (checkDef == null)
-            {
-                return;
-            }
-
-            boolean isTopTarget = topBmObject.bmGetId() == bmObject.bmGetId();
-
-            Collection<EStructuralFeature> features;
-            if (isTopTarget)
-            {
-                features = checkDef.features;
-            }
-            else
-            {
-                features = checkDef.containments.get(bmObject.eClass());
-            }
-
-            if (features != null && features.contains(feature))
+            Scope scope = CHECKED_COLLECTIONS.getScope(bmObject, topBmObject);
+            if (scope != null && scope.isTracked(feature))
             {
-                contextSession.addModelCheck(bmObject.bmGetTopObject());
+                try (ContextCollection collection = ContextCollection.start(CHECK_ID, getClass()))
+                {
+                    collection.topObject(topBmObject.bmGetId());
+                    // Only the changed collection is re-examined, known lost references of other ones stay actual
+                    danglingReferences.markDirty(bmObject, feature);
+                    contextSession.addModelCheck(topBmObject);
+                    collection.scheduled(1);
+                }
             }
         }
     }
 
     /*
      * Schedules the check for all holders of leftover references of the removed object.
-     * Only checked references are being taken into the account
+     * Only checked references are being taken into the account. Known issues of the holders of the removed object
+     * are dropped from the ledger
      */
     private static final class ObjectRemovalContextCollector
         implements OnModelObjectRemovalContextCollector
     {
+        private final BackReferenceScheduler backReferenceScheduler;
+
+        private final DanglingReferenceLedger danglingReferences;
+
+        ObjectRemovalContextCollector(BackReferenceScheduler backReferenceScheduler,
+            DanglingReferenceLedger danglingReferences)
+        {
+            this.backReferenceScheduler = backReferenceScheduler;
+            this.danglingReferences = danglingReferences;
+        }
+
         @Override
         public void collectContextOnObjectRemoval(URI removedObjectUri, EClass removedObjectEClass, BmSubEvent bmEvent,
             CheckContextCollectingSession contextSession, IBmTransaction bmTransaction)
         {
+            danglingReferences.forget(removedObjectUri);
             if (!(bmEvent instanceof BmAssociationEvent))
             {
                 return;
             }
 
-            scheduleCheckIfFeaturesAreTracked(removedObjectUri, bmTransaction, contextSession);
-        }
-    }
-
-    /*
-     * Check scope definition for the top object EClass
-     */
-    private static final class CheckDef
-    {
-        private final Collection<EStructuralFeature> features;
-        private final Map<EClass, Collection<EStructuralFeature>> containments;
-
-        CheckDef(Collection<EStructuralFeature> features)
-        {
-            this.features = features;
-            containments = Collections.emptyMap();
-        }
-
-        CheckDef(Map<EClass, Collection<EStructuralFeature>> containments)
-        {
-            this.features = null;
-            this.containments = containments;
+            try (ContextCollection collection = ContextCollection.start(CHECK_ID, getClass()))
+            {
+                collection.scheduled(backReferenceScheduler.schedule(removedObjectUri, bmTransaction, contextSession));
+            }
         }
     }
 }
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial implementation
+ *******************************************************************************/
+package com.e1c.dt.check.internal.md;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.InternalEObject;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+import com._1c.g5.v8.bm.core.IBmObject;
+import com._1c.g5.v8.bm.core.IBmTransaction;
+import com._1c.g5.v8.bm.integration.AbstractBmTask;
+import com._1c.g5.v8.bm.integration.IBmModel;
+import com.e1c.dt.check.internal.md.CheckedCollections.Scope;
+import com.e1c.dt.check.internal.md.CheckedCollections.TopObjectScope;
+import com.e1c.dt.check.md.IMdReferenceIntegrityScanner;
+import com.e1c.dt.check.md.MdLostReference;
+
+/**
+ * Implementation of the {@link IMdReferenceIntegrityScanner}.
+ * <ul>
+ * <li>Single read-only transaction is used to iterate top objects of every {@link org.eclipse.emf.ecore.EClass}
+ * having checked collections.</li>
+ * <li>The checked collections of the top object and its contained holders are scanned without resolving proxies.</li>
+ * <li>After the scan of the top object, it will be evicted from the transaction to conserve memory.</li>
+ * </ul>
+ *
+ * @author Alexander Tretyakevich
+ */
+public final class MdReferenceIntegrityScanner
+    implements IMdReferenceIntegrityScanner
+{
+    @Override
+    public long scan(IBmModel model, Consumer<MdLostReference> consumer, IProgressMonitor monitor)
+    {
+        Long found = model.executeReadonlyTask(new ScanTask(consumer, monitor), false);
+        return found == null ? 0 : found;
+    }
+
+    /**
+     * Task that scans all checked collections of the model.
+     */
+    private static final class ScanTask
+        extends AbstractBmTask<Long>
+    {
+        private final Consumer<MdLostReference> consumer;
+
+        private final IProgressMonitor monitor;
+
+        private long found;
+
+        ScanTask(Consumer<MdLostReference> consumer, IProgressMonitor monitor)
+        {
+            super(Messages.MdReferenceIntegrityScanner_Searching_lost_references);
+            this.consumer = consumer;
+            this.monitor = monitor;
+        }
+
+        @Override
+        public Long execute(IBmTransaction transaction, IProgressMonitor progressMonitor)
+        {
+            for (TopObjectScope topObjectScope : MdReferenceIntegrity.CHECKED_COLLECTIONS.getTopObjectScopes())
+            {
+                Iterator<IBmObject> topObjectIterator =
+                    transaction.getTopObjectIterator(topObjectScope.getTopEClass());
+                while (topObjectIterator.hasNext() && !isCanceled(progressMonitor))
+                {
+                    IBmObject topObject = topObjectIterator.next();
+                    scanHolder(topObject, topObject);
+                    if (!topObjectScope.getContainmentEClasses().isEmpty())
+                    {
+                        for (TreeIterator<EObject> contents = topObject.eAllContents(); contents.hasNext();)
+                        {
+                            EObject content = contents.next();
+                            if (content instanceof IBmObject)
+                            {
+                                scanHolder((IBmObject)content, topObject);
+                            }
+                        }
+                    }
+                    transaction.evict(topObject.bmGetId());
+                }
+            }
+            return found;
+        }
+
+        private void scanHolder(IBmObject holder, IBmObject topObject)
+        {
+            Scope scope = MdReferenceIntegrity.CHECKED_COLLECTIONS.getScope(holder, topObject);
+            if (scope == null)
+            {
+                return;
+            }
+
+            for (EStructuralFeature feature : scope.getFeatures())
+            {
+                LostReferences.scan(feature, holder.eGet(feature, false),
+                    (proxy, idx) -> accept(holder, feature, proxy, idx));
+            }
+        }
+
+        private void accept(IBmObject holder, EStructuralFeature feature, EObject proxy, int idx)
+        {
+            found++;
+            consumer.accept(new MdLostReference(EcoreUtil.getURI(holder), feature.getName(), idx,
+                ((InternalEObject)proxy).eProxyURI()));
+        }
+
+        private boolean isCanceled(IProgressMonitor progressMonitor)
+        {
+            return monitor.isCanceled() || progressMonitor != null && progressMonitor.isCanceled();
+        }
+    }
+}
@@ -28,6 +28,7 @@ final class Messages
     public static String MdReferenceIntegrity_LostReference_Many;
     public static String MdReferenceIntegrity_Title;
     public static String MdReferenceIntegrity_Description;
+    public static String MdReferenceIntegrityScanner_Searching_lost_references;
 
     static
     {
@@ -23,8 +23,8 @@ import com._1c.g5.v8.dt.metadata.mdclass.ObjectBelonging;
 import com._1c.g5.v8.dt.metadata.mdclass.util.MdClassUtil;
 import com._1c.g5.v8.dt.platform.version.IRuntimeVersionSupport;
 import com._1c.g5.v8.dt.platform.version.Version;
+import com.e1c.dt.check.common.metrics.MeasuredBasicCheck;
 import com.e1c.g5.v8.dt.check.ICheckParameters;
-import com.e1c.g5.v8.dt.check.components.BasicCheck;
 import com.e1c.g5.v8.dt.check.components.TopObjectFilterExtension;
 import com.e1c.g5.v8.dt.check.settings.IssueSeverity;
 import com.e1c.g5.v8.dt.check.settings.IssueType;
@@ -36,7 +36,7 @@ import com.google.inject.Inject;
  * @author Andrey Volkov
  */
 public final class ConfigurationCompatibilityModeCheck
-    extends BasicCheck
+    extends MeasuredBasicCheck
 {
     @Inject
     private IRuntimeVersionSupport runtimeVersionSupport;
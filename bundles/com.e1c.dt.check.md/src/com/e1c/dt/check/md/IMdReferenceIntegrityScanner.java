@@ -0,0 +1,44 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.md;
+
+import java.util.function.Consumer;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+
+import com._1c.g5.v8.bm.integration.IBmModel;
+
+/**
+ * Project-wide scanner of the lost references in the collections checked by the {@code md-reference-intergrity}
+ * check. Unlike the check itself, it does not use the check scheduler: all holders of the checked collections are
+ * iterated within a single read-only transaction and evicted as soon as they are processed, so the memory consumption
+ * does not depend on the size of the project. Found lost references are streamed to the consumer.
+ * <p/>
+ * The scanner is registered as an OSGi service.
+ *
+ * @author Alexander Tretyakevich
+ */
+public interface IMdReferenceIntegrityScanner
+{
+    /**
+     * Scans all checked collections of the model and reports every found lost reference to the consumer.
+     * The consumer is called in the thread of the read-only transaction.
+     *
+     * @param model the BM model of the project to scan, cannot be {@code null}
+     * @param consumer the consumer of found lost references, cannot be {@code null}
+     * @param monitor the progress monitor, cannot be {@code null}. The scan is stopped as soon as cancellation is
+     * reported
+     * @return the number of found lost references
+     */
+    long scan(IBmModel model, Consumer<MdLostReference> consumer, IProgressMonitor monitor);
+}
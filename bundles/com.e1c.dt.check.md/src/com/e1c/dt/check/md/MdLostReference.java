@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.md;
+
+import org.eclipse.emf.common.util.URI;
+
+/**
+ * Lost reference found by the {@link IMdReferenceIntegrityScanner}. Holds no model objects, so it stays valid after
+ * the holder has been evicted.
+ *
+ * @author Alexander Tretyakevich
+ */
+public final class MdLostReference
+{
+    private final URI holderUri;
+
+    private final String featureName;
+
+    private final int index;
+
+    private final URI targetUri;
+
+    /**
+     * Creates new lost reference description.
+     *
+     * @param holderUri the URI of the object holding the lost reference, cannot be {@code null}
+     * @param featureName the name of the feature holding the lost reference, cannot be {@code null}
+     * @param index the index of the lost reference in the collection or {@code -1} for the single-valued feature
+     * @param targetUri the URI of the lost object, can be {@code null} if unknown
+     */
+    public MdLostReference(URI holderUri, String featureName, int index, URI targetUri)
+    {
+        this.holderUri = holderUri;
+        this.featureName = featureName;
+        this.index = index;
+        this.targetUri = targetUri;
+    }
+
+    /**
+     * Returns the URI of the object holding the lost reference.
+     *
+     * @return the URI of the holder, never {@code null}
+     */
+    public URI getHolderUri()
+    {
+        return holderUri;
+    }
+
+    /**
+     * Returns the name of the feature holding the lost reference.
+     *
+     * @return the name of the feature, never {@code null}
+     */
+    public String getFeatureName()
+    {
+        return featureName;
+    }
+
+    /**
+     * Returns the index of the lost reference in the collection.
+     *
+     * @return the index of the lost reference or {@code -1} for the single-valued feature
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
+    /**
+     * Returns the URI of the lost object.
+     *
+     * @return the URI of the lost object, can be {@code null} if unknown
+     */
+    public URI getTargetUri()
+    {
+        return targetUri;
+    }
+}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.form.itests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.emf.common.util.TreeIterator;
+import org.eclipse.emf.ecore.EObject;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.ServiceReference;
+
+import com._1c.g5.v8.bm.core.IBmTransaction;
+import com._1c.g5.v8.bm.integration.AbstractBmTask;
+import com._1c.g5.v8.dt.core.platform.IBmModelManager;
+import com._1c.g5.v8.dt.core.platform.IDtProject;
+import com._1c.g5.v8.dt.form.model.AbstractDataPath;
+import com._1c.g5.v8.dt.form.model.Form;
+import com._1c.g5.v8.dt.form.model.FormField;
+import com._1c.g5.v8.dt.form.model.FormItem;
+import com._1c.g5.v8.dt.form.model.PropertyInfo;
+import com._1c.g5.v8.dt.form.service.datasourceinfo.IDataSourceInfoAssociationService;
+import com.e1c.dt.check.form.DataPathReferredObjectCheck;
+import com.e1c.dt.internal.check.form.itests.SingleProjectWithExtReadOnlyCheckTestBase;
+import com.e1c.g5.v8.dt.check.ICheckResultAcceptor;
+
+/**
+ * Tests for memoized resolution of data paths by {@link DataPathReferredObjectCheck}.
+ *
+ * Data paths of two form fields of the test form are given the same unresolved segments within a write transaction
+ * that is rolled back afterwards. The data source info service is replaced by a stub that resolves the data path
+ * of the first field only, so the data paths of the containers of the same type resolve differently.
+ *
+ * @author Dmitriy Marmyshev
+ */
+public class DataPathResolutionMemoTest
+    extends SingleProjectWithExtReadOnlyCheckTestBase
+{
+    private static final String PROJECT_NAME = "FormDataPath";
+    private static final String PROJECT_EXT_NAME = "FormDataPathExt";
+
+    private static final String FQN_FORM = "CommonForm.ListForm.Form";
+
+    private static final String RESOLVABLE_FIELD = "ListField1";
+
+    private static final String UNRESOLVABLE_FIELD = "ListField2";
+
+    /**
+     * Test that the data path of a container is not resolved by the result memoized for the same path of another
+     * container of the same type, while the repeated check of the same data path reuses the memoized result.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testSameTypedContainersResolvedSeparately() throws Exception
+    {
+        List<String> lookups = new ArrayList<>();
+        DataPathReferredObjectCheck check = new DataPathReferredObjectCheck(stubService(lookups));
+        List<Boolean> issues = executeAndRollback(transaction -> {
+            Form form = (Form)transaction.getTopObjectByFqn(FQN_FORM);
+            assertNotNull(form);
+            AbstractDataPath resolvable = setSameSegments(getFieldDataPath(form, RESOLVABLE_FIELD));
+            AbstractDataPath unresolvable = setSameSegments(getFieldDataPath(form, UNRESOLVABLE_FIELD));
+            return List.of(hasIssue(check, resolvable), hasIssue(check, unresolvable), hasIssue(check, resolvable));
+        });
+
+        assertFalse(issues.get(0));
+        assertTrue(issues.get(1));
+        assertFalse(issues.get(2));
+        // The second check of the first data path is resolved by the memoized result
+        assertEquals(List.of(RESOLVABLE_FIELD, UNRESOLVABLE_FIELD), lookups);
+    }
+
+    @Override
+    protected String getTestConfigurationName()
+    {
+        return PROJECT_NAME;
+    }
+
+    @Override
+    protected String getTestConfigurationExtName()
+    {
+        return PROJECT_EXT_NAME;
+    }
+
+    /*
+     * Executes the function in a write transaction of the test project that is rolled back afterwards
+     */
+    private <T> T executeAndRollback(Function<IBmTransaction, T> function)
+    {
+        BundleContext bundleContext = FrameworkUtil.getBundle(getClass()).getBundleContext();
+        ServiceReference<IBmModelManager> reference = bundleContext.getServiceReference(IBmModelManager.class);
+        assertNotNull(reference);
+        List<T> result = new ArrayList<>();
+        try
+        {
+            IDtProject dtProject = dtProjectManager.getDtProject(PROJECT_NAME);
+            assertNotNull(dtProject);
+            IBmModelManager bmModelManager = bundleContext.getService(reference);
+            bmModelManager.getModel(dtProject)
+                .execute(new AbstractBmTask<Void>("Check data paths")
+                {
+                    @Override
+                    public Void execute(IBmTransaction transaction, IProgressMonitor progressMonitor)
+                    {
+                        result.add(function.apply(transaction));
+                        throw new RollbackException();
+                    }
+                });
+        }
+        catch (RollbackException e)
+        {
+            // The changes have been rolled back
+        }
+        finally
+        {
+            bundleContext.ungetService(reference);
+        }
+        assertEquals(1, result.size());
+        return result.get(0);
+    }
+
+    /*
+     * Returns the data path of the form field with the specified name
+     */
+    private static AbstractDataPath getFieldDataPath(Form form, String name)
+    {
+        for (TreeIterator<EObject> iterator = form.eAllContents(); iterator.hasNext();)
+        {
+            EObject child = iterator.next();
+            if (child instanceof FormField && name.equals(((FormItem)child).getName()))
+            {
+                AbstractDataPath dataPath = ((FormField)child).getDataPath();
+                assertNotNull(name, dataPath);
+                return dataPath;
+            }
+        }
+        throw new AssertionError("Form field not found: " + name);
+    }
+
+    /*
+     * Sets the same segments without referred objects to the data path
+     */
+    private static AbstractDataPath setSameSegments(AbstractDataPath dataPath)
+    {
+        dataPath.getSegments().clear();
+        dataPath.getSegments().addAll(List.of("List", "SameField"));
+        dataPath.getObjects().clear();
+        return dataPath;
+    }
+
+    /*
+     * Checks the data path and returns whether an issue has been reported
+     */
+    private static boolean hasIssue(DataPathReferredObjectCheck check, AbstractDataPath dataPath)
+    {
+        List<Object> issues = new ArrayList<>();
+        ICheckResultAcceptor acceptor = (ICheckResultAcceptor)Proxy.newProxyInstance(
+            ICheckResultAcceptor.class.getClassLoader(), new Class<?>[] { ICheckResultAcceptor.class },
+            (proxy, method, args) -> {
+                if (method.getName().startsWith("addIssue"))
+                {
+                    issues.add(args[0]);
+                }
+                return null;
+            });
+        check.check(dataPath, acceptor, null, new NullProgressMonitor());
+        return !issues.isEmpty();
+    }
+
+    /*
+     * Creates the data source info service that resolves data paths of the resolvable field only and records names
+     * of the fields whose data paths are looked up
+     */
+    private static IDataSourceInfoAssociationService stubService(List<String> lookups)
+    {
+        PropertyInfo propertyInfo = (PropertyInfo)Proxy.newProxyInstance(PropertyInfo.class.getClassLoader(),
+            new Class<?>[] { PropertyInfo.class }, (proxy, method, args) -> null);
+        return (IDataSourceInfoAssociationService)Proxy.newProxyInstance(
+            IDataSourceInfoAssociationService.class.getClassLoader(),
+            new Class<?>[] { IDataSourceInfoAssociationService.class }, (proxy, method, args) -> {
+                if ("findPropertyInfo".equals(method.getName()) && args.length == 2
+                    && args[1] instanceof AbstractDataPath)
+                {
+                    String fieldName = ((FormItem)((AbstractDataPath)args[1]).eContainer()).getName();
+                    lookups.add(fieldName);
+                    return RESOLVABLE_FIELD.equals(fieldName) ? propertyInfo : null;
+                }
+                return null;
+            });
+    }
+
+    /*
+     * Thrown to roll back the write transaction
+     */
+    private static final class RollbackException
+        extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+    }
+}
@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.form.itests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.junit.Test;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.FrameworkUtil;
+import org.osgi.framework.ServiceReference;
+
+import com._1c.g5.v8.bm.core.IBmTransaction;
+import com._1c.g5.v8.bm.integration.AbstractBmTask;
+import com._1c.g5.v8.dt.core.platform.IBmModelManager;
+import com._1c.g5.v8.dt.core.platform.IDtProject;
+import com._1c.g5.v8.dt.form.model.Form;
+import com.e1c.dt.check.form.SkipBaseFormExtension;
+import com.e1c.dt.internal.check.form.itests.SingleProjectWithExtReadOnlyCheckTestBase;
+
+/**
+ * Tests for classification of forms by {@link SkipBaseFormExtension}.
+ *
+ * @author Vadim Geraskin
+ */
+public class SkipBaseFormExtensionTest
+    extends SingleProjectWithExtReadOnlyCheckTestBase
+{
+    private static final String PROJECT_NAME = "FormDataPath";
+    private static final String PROJECT_EXT_NAME = "FormDataPathExt";
+
+    private static final String FQN_FORM = "CommonForm.ListForm.Form";
+
+    /**
+     * Test that the repeated classification of the adopted form and its base form within the same transaction
+     * reuses the classification instead of resolving the forms again.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testClassificationReusedWithinTransaction() throws Exception
+    {
+        List<Object> result = executeReadonly(transaction -> {
+            Form form = (Form)transaction.getTopObjectByFqn(FQN_FORM);
+            assertNotNull(form);
+            Form baseForm = form.getBaseForm();
+            assertNotNull(baseForm);
+            assertFalse(baseForm.eIsProxy());
+
+            long classifiedFormCount = SkipBaseFormExtension.getClassifiedFormCount();
+            List<Object> classifications = new ArrayList<>();
+            classifications.add(SkipBaseFormExtension.isBaseForm(form));
+            classifications.add(SkipBaseFormExtension.isBaseForm(baseForm));
+            classifications.add(SkipBaseFormExtension.isBaseForm(form));
+            classifications.add(SkipBaseFormExtension.isBaseForm(baseForm));
+            classifications.add(SkipBaseFormExtension.getClassifiedFormCount() - classifiedFormCount);
+            return classifications;
+        });
+
+        assertEquals(Boolean.FALSE, result.get(0));
+        assertEquals(Boolean.TRUE, result.get(1));
+        assertEquals(Boolean.FALSE, result.get(2));
+        assertEquals(Boolean.TRUE, result.get(3));
+        // The second lookups of both forms are served by the classifications made by the first ones
+        assertEquals(2L, result.get(4));
+    }
+
+    /**
+     * Test that the classification made within a transaction is not reused within the next transaction.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testClassificationNotReusedByNextTransaction() throws Exception
+    {
+        Long classifiedFormCount = executeReadonly(transaction -> {
+            Form form = (Form)transaction.getTopObjectByFqn(FQN_FORM);
+            assertNotNull(form);
+            SkipBaseFormExtension.isBaseForm(form);
+            return SkipBaseFormExtension.getClassifiedFormCount();
+        });
+        Long nextClassifiedFormCount = executeReadonly(transaction -> {
+            Form form = (Form)transaction.getTopObjectByFqn(FQN_FORM);
+            assertNotNull(form);
+            assertFalse(SkipBaseFormExtension.isBaseForm(form));
+            return SkipBaseFormExtension.getClassifiedFormCount();
+        });
+
+        assertTrue(nextClassifiedFormCount > classifiedFormCount);
+    }
+
+    @Override
+    protected String getTestConfigurationName()
+    {
+        return PROJECT_NAME;
+    }
+
+    @Override
+    protected String getTestConfigurationExtName()
+    {
+        return PROJECT_EXT_NAME;
+    }
+
+    /*
+     * Executes the function in a read-only transaction of the test extension project
+     */
+    private <T> T executeReadonly(Function<IBmTransaction, T> function)
+    {
+        BundleContext bundleContext = FrameworkUtil.getBundle(getClass()).getBundleContext();
+        ServiceReference<IBmModelManager> reference = bundleContext.getServiceReference(IBmModelManager.class);
+        assertNotNull(reference);
+        try
+        {
+            IDtProject dtProject = dtProjectManager.getDtProject(PROJECT_EXT_NAME);
+            assertNotNull(dtProject);
+            IBmModelManager bmModelManager = bundleContext.getService(reference);
+            return bmModelManager.getModel(dtProject)
+                .executeReadonlyTask(new AbstractBmTask<T>("Classify forms")
+                {
+                    @Override
+                    public T execute(IBmTransaction transaction, IProgressMonitor progressMonitor)
+                    {
+                        return function.apply(transaction);
+                    }
+                }, false);
+        }
+        finally
+        {
+            bundleContext.ungetService(reference);
+        }
+    }
+}
@@ -12,12 +12,20 @@
  *******************************************************************************/
 package com.e1c.dt.check.internal.form.cleanup.itests;
 
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -31,7 +39,12 @@ import javax.xml.xpath.XPathFactory;
 import org.assertj.core.api.Assertions;
 import org.assertj.core.api.InstanceOfAssertFactories;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Rule;
@@ -42,9 +55,13 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
+import com._1c.g5.v8.bm.core.IBmObject;
+import com._1c.g5.v8.bm.core.IBmTransaction;
+import com._1c.g5.v8.bm.integration.AbstractBmTask;
 import com._1c.g5.v8.bm.integration.IBatchSessionController;
 import com._1c.g5.v8.bm.integration.IBmModel;
 import com._1c.g5.v8.derived.IDerivedDataManager;
+import com._1c.g5.v8.dt.core.filesystem.IQualifiedNameFilePathConverter;
 import com._1c.g5.v8.dt.core.model.IModelEditingSupport;
 import com._1c.g5.v8.dt.core.operations.ProjectPipelineJob;
 import com._1c.g5.v8.dt.core.platform.IBmModelManager;
@@ -52,8 +69,11 @@ import com._1c.g5.v8.dt.core.platform.IDerivedDataManagerProvider;
 import com._1c.g5.v8.dt.core.platform.IDtProject;
 import com._1c.g5.v8.dt.core.platform.IDtProjectManager;
 import com._1c.g5.v8.dt.core.platform.IWorkspaceOrchestrator;
+import com._1c.g5.v8.dt.form.model.Form;
 import com._1c.g5.v8.dt.form.service.FormIdentifierService;
+import com._1c.g5.v8.dt.migration.cleanup.ICleanUpProjectObjectTasksProvider.ICleanUpBmObjectTask;
 import com._1c.g5.v8.dt.migration.cleanup.ICleanUpProjectSourcesManager;
+import com._1c.g5.v8.dt.platform.version.IRuntimeVersionSupport;
 import com._1c.g5.v8.dt.platform.version.Version;
 import com._1c.g5.v8.dt.testing.GuiceModules;
 import com._1c.g5.v8.dt.testing.JUnitGuiceRunner;
@@ -61,6 +81,7 @@ import com._1c.g5.v8.dt.testing.TestingPlatformSupport;
 import com._1c.g5.v8.dt.testing.TestingWorkspace;
 import com._1c.g5.wiring.AbstractServiceAwareModule;
 import com.e1c.dt.check.internal.form.CorePlugin;
+import com.e1c.dt.check.internal.form.FormItemIdValidator;
 import com.e1c.dt.check.internal.form.cleanup.InvalidItemIdCleanup;
 import com.google.inject.Inject;
 
@@ -76,6 +97,16 @@ public class InvalidItemIdCleanupTest
      */
     private static final String ALL_NON_ATTRIBUTE_ID_TEXT = "//id[not(parent::*[local-name()='attributes'])]/text()";
 
+    /**
+     * Name of the file of the known clean forms cache in the project working location.
+     */
+    private static final String KNOWN_CLEAN_FORMS_FILE = "known-clean-forms.bin"; //$NON-NLS-1$
+
+    /**
+     * Name of the file of the cleanup scan checkpoint in the project working location.
+     */
+    private static final String CHECKPOINT_FILE = "cleanup-scan-checkpoint.bin"; //$NON-NLS-1$
+
     @ClassRule
     public static final TestingPlatformSupport testingPlatformSupport = new TestingPlatformSupport(Version.V8_3_19);
 
@@ -97,15 +128,47 @@ public class InvalidItemIdCleanupTest
     @Inject
     private FormIdentifierService formIdentifierService;
 
+    @Inject
+    private IQualifiedNameFilePathConverter qualifiedNameFilePathConverter;
+
     @Inject
     private IDerivedDataManagerProvider derivedDataManagerProvider;
 
+    @Inject
+    private IRuntimeVersionSupport runtimeVersionSupport;
+
     private IProject testProject;
 
+    /**
+     * Values of system properties before they were set by the test.
+     */
+    private final Map<String, String> savedSystemProperties = new HashMap<>();
+
     @Before
-    public void loadTestProject() throws CoreException
+    public void loadTestProject() throws CoreException, IOException
     {
         testProject = testingWorkspace.setUpProject("InvalidItemIdCheck", getClass());
+        deleteScanState();
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        savedSystemProperties.forEach((key, value) -> {
+            if (value == null)
+            {
+                System.clearProperty(key);
+            }
+            else
+            {
+                System.setProperty(key, value);
+            }
+        });
+        savedSystemProperties.clear();
+        if (testProject != null)
+        {
+            deleteScanState();
+        }
     }
 
     /**
@@ -384,6 +447,312 @@ public class InvalidItemIdCleanupTest
             .isEqualTo("-1");
     }
 
+    /**
+     * Test that the parallel scan of forms returns the same cleanup tasks in the same order as the sequential one.
+     *
+     * @throws Exception When cleanup tasks or their order differ.
+     */
+    @Test
+    public void testParallelScanSameTasks()
+    {
+        IDtProject dtProject = dtProjectManager.getDtProject(testProject);
+        InvalidItemIdCleanup cleanup = newCleanup();
+        List<ICleanUpBmObjectTask> sequentialTasks = cleanup.getCleanUpProjectTasks(dtProject, editingSupport);
+        Assertions.assertThat(sequentialTasks).isNotEmpty();
+        setSystemProperty(InvalidItemIdCleanup.PARALLELISM_PROPERTY, "4"); //$NON-NLS-1$
+        Assertions.assertThat(cleanup.getCleanUpProjectTasks(dtProject, editingSupport))
+            .containsExactlyElementsOf(sequentialTasks);
+    }
+
+    /**
+     * Test that batching fixes several forms per write transaction and all of them get fixed.
+     *
+     * Forms with issues are counted by validating all forms of the test project independently of the cleanup.
+     * Each cleanup task is executed as a separate write task of the model, so {@code N} forms with issues and
+     * batches of {@code 2} forms have to result in {@code ceil(N / 2)} transactions.
+     *
+     * @throws Exception When numbers of cleanup tasks or transactions are unexpected or forms still have issues
+     * after cleanup.
+     */
+    @Test
+    public void testBatchedCleanupUsesFewerTransactions()
+    {
+        IDtProject dtProject = dtProjectManager.getDtProject(testProject);
+        int formCount = getFormsWithIssues().size();
+        Assertions.assertThat(formCount).isGreaterThan(2);
+        InvalidItemIdCleanup cleanup = newCleanup();
+
+        setSystemProperty(InvalidItemIdCleanup.BATCH_SIZE_PROPERTY, "1"); //$NON-NLS-1$
+        Assertions.assertThat(cleanup.getCleanUpProjectTasks(dtProject, editingSupport)).hasSize(formCount);
+        setSystemProperty(InvalidItemIdCleanup.BATCH_SIZE_PROPERTY, Integer.toString(formCount));
+        setSystemProperty(InvalidItemIdCleanup.BATCH_ITEMS_PROPERTY, "1"); //$NON-NLS-1$
+        Assertions.assertThat(cleanup.getCleanUpProjectTasks(dtProject, editingSupport)).hasSize(formCount);
+        setSystemProperty(InvalidItemIdCleanup.BATCH_ITEMS_PROPERTY, null);
+
+        setSystemProperty(InvalidItemIdCleanup.BATCH_SIZE_PROPERTY, "2"); //$NON-NLS-1$
+        List<ICleanUpBmObjectTask> cleanupTasks = cleanup.getCleanUpProjectTasks(dtProject, editingSupport);
+        Assertions.assertThat(executeCountingTransactions(cleanupTasks)).isEqualTo((formCount + 1) / 2);
+        Assertions.assertThat(getFormsWithIssues()).isEmpty();
+        Assertions.assertThat(cleanup.getCleanUpProjectTasks(dtProject, editingSupport)).isEmpty();
+    }
+
+    /**
+     * Test that by default all forms with issues of the test project are fixed in a single write transaction.
+     *
+     * @throws Exception When number of transactions is unexpected or forms still have issues after cleanup.
+     */
+    @Test
+    public void testDefaultBatchUsesSingleTransaction()
+    {
+        IDtProject dtProject = dtProjectManager.getDtProject(testProject);
+        InvalidItemIdCleanup cleanup = newCleanup();
+        Assertions.assertThat(getFormsWithIssues()).hasSizeGreaterThan(1);
+        List<ICleanUpBmObjectTask> cleanupTasks = cleanup.getCleanUpProjectTasks(dtProject, editingSupport);
+        Assertions.assertThat(executeCountingTransactions(cleanupTasks)).isEqualTo(1);
+        Assertions.assertThat(getFormsWithIssues()).isEmpty();
+        Assertions.assertThat(cleanup.getCleanUpProjectTasks(dtProject, editingSupport)).isEmpty();
+    }
+
+    /**
+     * Test that clean forms are remembered in the project working location, the next scan does not walk them
+     * and still finds the same forms to fix.
+     *
+     * Every walked form is checked for being editable, so forms passed to the editing support are recorded.
+     *
+     * @throws Exception When the cache is not saved, a known clean form is walked again or cleanup tasks differ.
+     */
+    @Test
+    public void testKnownCleanFormsCacheKeepsTasks()
+    {
+        IDtProject dtProject = dtProjectManager.getDtProject(testProject);
+        String cleanForm = "Catalog.Catalog.Form.DefaultListForm.Form"; //$NON-NLS-1$
+        String formWithIssues = "Catalog.Catalog.Form.BadMerge.Form"; //$NON-NLS-1$
+        Set<String> walkedForms = ConcurrentHashMap.newKeySet();
+        List<ICleanUpBmObjectTask> firstTasks =
+            newCleanup().getCleanUpProjectTasks(dtProject, recordingEditingSupport(walkedForms));
+        Assertions.assertThat(firstTasks).isNotEmpty();
+        Assertions.assertThat(walkedForms).contains(cleanForm, formWithIssues);
+        IPath workingLocation = testProject.getWorkingLocation(CorePlugin.PLUGIN_ID);
+        Assertions.assertThat(workingLocation.append(KNOWN_CLEAN_FORMS_FILE).toFile()).exists();
+        // The scan has been completed, so there is nothing to resume
+        Assertions.assertThat(workingLocation.append(CHECKPOINT_FILE).toFile()).doesNotExist();
+
+        walkedForms.clear();
+        Assertions.assertThat(newCleanup().getCleanUpProjectTasks(dtProject, recordingEditingSupport(walkedForms)))
+            .containsExactlyElementsOf(firstTasks);
+        Assertions.assertThat(walkedForms).contains(formWithIssues).doesNotContain(cleanForm);
+    }
+
+    /**
+     * Test that cancellation by the monitor of the caller stops the scan, saves the checkpoint and the next scan
+     * resumes with the same cleanup tasks as a full scan.
+     *
+     * @throws Exception When the scan is not stopped, the checkpoint is not saved or cleanup tasks differ.
+     */
+    @Test
+    public void testCallerCancellationSavesCheckpoint() throws IOException
+    {
+        IDtProject dtProject = dtProjectManager.getDtProject(testProject);
+        Set<String> walkedForms = ConcurrentHashMap.newKeySet();
+        IProgressMonitor callerMonitor = new NullProgressMonitor()
+        {
+            @Override
+            public boolean isCanceled()
+            {
+                return walkedForms.size() >= 2;
+            }
+        };
+        newCleanup().getCleanUpProjectTasks(dtProject, recordingEditingSupport(walkedForms), callerMonitor);
+        Assertions.assertThat(walkedForms).hasSize(2);
+        IPath workingLocation = testProject.getWorkingLocation(CorePlugin.PLUGIN_ID);
+        Assertions.assertThat(workingLocation.append(CHECKPOINT_FILE).toFile()).exists();
+
+        walkedForms.clear();
+        List<ICleanUpBmObjectTask> resumedTasks =
+            newCleanup().getCleanUpProjectTasks(dtProject, recordingEditingSupport(walkedForms));
+        Assertions.assertThat(workingLocation.append(CHECKPOINT_FILE).toFile()).doesNotExist();
+        deleteScanState();
+        Assertions.assertThat(newCleanup().getCleanUpProjectTasks(dtProject, editingSupport))
+            .containsExactlyElementsOf(resumedTasks);
+    }
+
+    /**
+     * Test that known clean forms saved for other validation rules are validated again.
+     *
+     * The cache is written with the current modification stamp of the clean form but with a different version
+     * of the rules in the header.
+     *
+     * @throws Exception When the cache of other rules is used or it cannot be written.
+     */
+    @Test
+    public void testKnownCleanFormsOfOtherRulesDropped() throws IOException
+    {
+        IDtProject dtProject = dtProjectManager.getDtProject(testProject);
+        String cleanForm = "Catalog.Catalog.Form.DefaultListForm.Form";
+        long revision =
+            testProject.getFile("src/Catalogs/Catalog/Forms/DefaultListForm/Form.form").getModificationStamp();
+        IPath workingLocation = testProject.getWorkingLocation(CorePlugin.PLUGIN_ID);
+        try (DataOutputStream output = new DataOutputStream(
+            Files.newOutputStream(workingLocation.append(KNOWN_CLEAN_FORMS_FILE).toFile().toPath())))
+        {
+            output.writeInt(3);
+            output.writeUTF("0/0.0.0/0.0.0");
+            output.writeInt(1);
+            output.writeUTF(cleanForm);
+            output.writeLong(revision);
+        }
+
+        Set<String> walkedForms = ConcurrentHashMap.newKeySet();
+        newCleanup().getCleanUpProjectTasks(dtProject, recordingEditingSupport(walkedForms));
+        Assertions.assertThat(walkedForms).contains(cleanForm);
+        // The cache has been saved for the current rules, so the clean form is skipped now
+        walkedForms.clear();
+        newCleanup().getCleanUpProjectTasks(dtProject, recordingEditingSupport(walkedForms));
+        Assertions.assertThat(walkedForms).doesNotContain(cleanForm);
+    }
+
+    /**
+     * Creates editing support that records fully qualified names of forms checked for being editable
+     * and delegates to the platform editing support.
+     *
+     * @param checkedForms Set to record names of the checked forms to. Must not be {@code null}.
+     * @return Recording editing support. Never {@code null}.
+     */
+    private IModelEditingSupport recordingEditingSupport(Set<String> checkedForms)
+    {
+        return (IModelEditingSupport)Proxy.newProxyInstance(IModelEditingSupport.class.getClassLoader(),
+            new Class<?>[] { IModelEditingSupport.class }, (proxy, method, args) -> {
+                if ("canEdit".equals(method.getName()) && args != null && args[0] instanceof IBmObject) //$NON-NLS-1$
+                {
+                    checkedForms.add(((IBmObject)args[0]).bmGetFqn());
+                }
+                try
+                {
+                    return method.invoke(editingSupport, args);
+                }
+                catch (InvocationTargetException e)
+                {
+                    throw e.getCause();
+                }
+            });
+    }
+
+    /**
+     * Sets system property for the duration of the test, its previous value is restored after the test.
+     *
+     * @param key Key of the property. Must not be {@code null}.
+     * @param value New value of the property or {@code null} to clear it.
+     */
+    private void setSystemProperty(String key, String value)
+    {
+        savedSystemProperties.putIfAbsent(key, System.getProperty(key));
+        if (value == null)
+        {
+            System.clearProperty(key);
+        }
+        else
+        {
+            System.setProperty(key, value);
+        }
+    }
+
+    /**
+     * Finds forms of the test project that have invalid item identifiers by validating all forms of the project.
+     *
+     * @return Fully qualified names of the forms with issues. Never {@code null}.
+     */
+    private List<String> getFormsWithIssues()
+    {
+        List<String> formFqns = new ArrayList<>();
+        try
+        {
+            testProject.accept(resource -> {
+                if (resource.getType() == IResource.FILE && "Form.form".equals(resource.getName()))
+                {
+                    String fqn = qualifiedNameFilePathConverter.getFqn(resource.getProjectRelativePath());
+                    if (fqn != null)
+                    {
+                        formFqns.add(fqn);
+                    }
+                }
+                return true;
+            });
+        }
+        catch (CoreException e)
+        {
+            throw new AssertionError("Unable to list forms of the test project", e);
+        }
+        FormItemIdValidator validator = new FormItemIdValidator(formIdentifierService);
+        IBmModel bmModel = bmModelManager.getModel(dtProjectManager.getDtProject(testProject));
+        return bmModel.executeReadonlyTask(new AbstractBmTask<List<String>>("Find forms with issues")
+        {
+            @Override
+            public List<String> execute(IBmTransaction transaction, IProgressMonitor progressMonitor)
+            {
+                List<String> formsWithIssues = new ArrayList<>();
+                for (String fqn : formFqns)
+                {
+                    IBmObject object = transaction.getTopObjectByFqn(fqn);
+                    if (object instanceof Form && !validator.validate((Form)object).isValid())
+                    {
+                        formsWithIssues.add(fqn);
+                    }
+                }
+                return formsWithIssues;
+            }
+        }, false);
+    }
+
+    /**
+     * Deletes the known clean forms cache and the scan checkpoint of the test project,
+     * so every test starts with a full scan.
+     *
+     * @throws IOException If the files cannot be deleted.
+     */
+    private void deleteScanState() throws IOException
+    {
+        IPath workingLocation = testProject.getWorkingLocation(CorePlugin.PLUGIN_ID);
+        Files.deleteIfExists(workingLocation.append(KNOWN_CLEAN_FORMS_FILE).toFile().toPath());
+        Files.deleteIfExists(workingLocation.append(CHECKPOINT_FILE).toFile().toPath());
+    }
+
+    /**
+     * Creates cleanup under test.
+     *
+     * @return New cleanup instance. Never {@code null}.
+     */
+    private InvalidItemIdCleanup newCleanup()
+    {
+        return new InvalidItemIdCleanup(bmModelManager, formIdentifierService, qualifiedNameFilePathConverter,
+            runtimeVersionSupport);
+    }
+
+    /**
+     * Executes cleanup tasks as write tasks of the model of the test project.
+     *
+     * @param cleanupTasks Tasks to execute. Must not be {@code null}.
+     * @return Number of distinct write transactions the tasks have been executed in.
+     */
+    private int executeCountingTransactions(List<ICleanUpBmObjectTask> cleanupTasks)
+    {
+        IBmModel bmModel = bmModelManager.getModel(dtProjectManager.getDtProject(testProject));
+        Set<IBmTransaction> transactions = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (ICleanUpBmObjectTask cleanupTask : cleanupTasks)
+        {
+            bmModel.execute(new AbstractBmTask<Void>("Execute cleanup task") //$NON-NLS-1$
+            {
+                @Override
+                public Void execute(IBmTransaction transaction, IProgressMonitor progressMonitor)
+                {
+                    transactions.add(transaction);
+                    cleanupTask.execute(transaction, progressMonitor);
+                    return null;
+                }
+            });
+        }
+        return transactions.size();
+    }
+
     /**
      * Cleans up test project so that it can be verified.
      *
@@ -444,7 +813,7 @@ public class InvalidItemIdCleanupTest
                 });
                 try
                 {
-                    new InvalidItemIdCleanup(bmModelManager, formIdentifierService)
+                    newCleanup()
                         .getCleanUpProjectTasks(dtProject, editingSupport)
                         .forEach(cleaupTask -> bmModel.executeInBatchSession(batchSessionHandle, cleaupTask));
                 }
@@ -619,6 +988,8 @@ public class InvalidItemIdCleanupTest
             bind(IDerivedDataManagerProvider.class).toService();
             bind(IModelEditingSupport.class).toService();
             bind(FormIdentifierService.class).toService();
+            bind(IQualifiedNameFilePathConverter.class).toService();
+            bind(IRuntimeVersionSupport.class).toService();
         }
 
     }
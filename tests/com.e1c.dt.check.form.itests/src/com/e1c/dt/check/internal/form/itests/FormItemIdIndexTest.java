@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.internal.form.itests;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import com._1c.g5.v8.bm.core.IBmEngine;
+import com._1c.g5.v8.bm.core.IBmObject;
+import com._1c.g5.v8.dt.form.model.FormFactory;
+import com._1c.g5.v8.dt.form.model.FormField;
+import com.e1c.dt.check.internal.form.FormItemIdIndex;
+import com.e1c.dt.check.internal.form.FormItemIdValidator.Result;
+import com.e1c.dt.check.internal.form.IntHashSet;
+
+/**
+ * Tests for {@link FormItemIdIndex}.
+ */
+public class FormItemIdIndexTest
+{
+    private static final Result NO_ISSUES = Result.detached(new int[0], new int[0], new boolean[0], 3);
+
+    private final IBmEngine engine = proxy(IBmEngine.class, null);
+
+    /**
+     * Checks that removal of an item with a unique identifier is applied when the stamp matches.
+     */
+    @Test
+    public void testRemovalAppliedWhenStampMatches()
+    {
+        FormItemIdIndex index = new FormItemIdIndex();
+        IBmObject form = form(1L);
+        index.endValidation(form, index.beginValidation(form), ids(1, 2, 3), NO_ISSUES);
+
+        Assertions.assertThat(index.removeItems(form, List.of(item(3)))).isTrue();
+        Assertions.assertThat(index.removeItems(form, List.of(item(2)))).isTrue();
+    }
+
+    /**
+     * Checks that removal falls back to full re-validation while a validation of the form is in progress
+     * and that the overlapping validation is not recorded.
+     */
+    @Test
+    public void testRemovalFallsBackWhenStampDoesNotMatch()
+    {
+        FormItemIdIndex index = new FormItemIdIndex();
+        IBmObject form = form(1L);
+        index.endValidation(form, index.beginValidation(form), ids(1, 2, 3), NO_ISSUES);
+
+        long stamp = index.beginValidation(form);
+        Assertions.assertThat(index.removeItems(form, List.of(item(3)))).isFalse();
+
+        index.endValidation(form, stamp, ids(1, 2, 3), NO_ISSUES);
+        Assertions.assertThat(index.removeItems(form, List.of(item(2)))).isFalse();
+
+        index.endValidation(form, index.beginValidation(form), ids(1, 2), NO_ISSUES);
+        Assertions.assertThat(index.removeItems(form, List.of(item(2)))).isTrue();
+    }
+
+    /**
+     * Checks that removal falls back to full re-validation after a change that could not be applied
+     * and for forms that have never been validated.
+     */
+    @Test
+    public void testRemovalFallsBackForUnknownForm()
+    {
+        FormItemIdIndex index = new FormItemIdIndex();
+        IBmObject form = form(1L);
+        Assertions.assertThat(index.removeItems(form, List.of(item(1)))).isFalse();
+
+        index.endValidation(form, index.beginValidation(form), ids(1, 2, 3), NO_ISSUES);
+        Assertions.assertThat(index.changeId(form, 1, 2, true)).isFalse();
+        Assertions.assertThat(index.removeItems(form, List.of(item(3)))).isFalse();
+
+        IBmObject otherForm = form(2L);
+        Assertions.assertThat(index.removeItems(otherForm, List.of(item(3)))).isFalse();
+    }
+
+    private IBmObject form(long id)
+    {
+        return proxy(IBmObject.class, (proxy, method, args) -> {
+            switch (method.getName())
+            {
+            case "bmGetEngine": //$NON-NLS-1$
+                return engine;
+            case "bmGetId": //$NON-NLS-1$
+                return id;
+            default:
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static FormField item(int id)
+    {
+        FormField item = FormFactory.eINSTANCE.createFormField();
+        item.setId(id);
+        return item;
+    }
+
+    private static IntHashSet ids(int... values)
+    {
+        IntHashSet ids = new IntHashSet();
+        for (int value : values)
+        {
+            ids.add(value);
+        }
+        return ids;
+    }
+
+    /*
+     * Creates proxy that has identity equality and delegates other methods to the handler
+     */
+    private static <T> T proxy(Class<T> type, InvocationHandler handler)
+    {
+        InvocationHandler identityHandler = (proxy, method, args) -> {
+            switch (method.getName())
+            {
+            case "hashCode": //$NON-NLS-1$
+                return System.identityHashCode(proxy);
+            case "equals": //$NON-NLS-1$
+                return proxy == args[0];
+            case "toString": //$NON-NLS-1$
+                return type.getSimpleName();
+            default:
+                if (handler == null)
+                {
+                    throw new UnsupportedOperationException(method.getName());
+                }
+                return handler.invoke(proxy, method, args);
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, identityHandler));
+    }
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (C) 2026, 1C-Soft LLC and others.
+ *
+ * This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0
+ * which is available at https://www.eclipse.org/legal/epl-2.0/
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ *
+ * Contributors:
+ *     1C-Soft LLC - initial API and implementation
+ *******************************************************************************/
+package com.e1c.dt.check.internal.form.itests;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.assertj.core.api.Assertions;
+import org.junit.Test;
+
+import com.e1c.dt.check.internal.form.IntHashSet;
+
+/**
+ * Tests for {@link IntHashSet}.
+ */
+public class IntHashSetTest
+{
+    /**
+     * Checks that duplicates are detected for special values including the one used to mark empty slots.
+     */
+    @Test
+    public void testSpecialValues()
+    {
+        IntHashSet set = new IntHashSet(1);
+        for (int value : new int[] { 0, -1, 1, Integer.MIN_VALUE, Integer.MAX_VALUE })
+        {
+            Assertions.assertThat(set.contains(value)).isFalse();
+            Assertions.assertThat(set.add(value)).isTrue();
+            Assertions.assertThat(set.add(value)).isFalse();
+            Assertions.assertThat(set.contains(value)).isTrue();
+        }
+        Assertions.assertThat(set.size()).isEqualTo(5);
+
+        set.clear();
+        Assertions.assertThat(set.size()).isZero();
+        Assertions.assertThat(set.contains(0)).isFalse();
+        Assertions.assertThat(set.contains(Integer.MAX_VALUE)).isFalse();
+    }
+
+    /**
+     * Checks that the set behaves the same as {@link HashSet} while growing.
+     */
+    @Test
+    public void testSameAsHashSet()
+    {
+        Random random = new Random(42);
+        IntHashSet set = new IntHashSet();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 10_000; i++)
+        {
+            int value = random.nextInt(5_000) - 100;
+            Assertions.assertThat(set.add(value)).isEqualTo(expected.add(value));
+        }
+        Assertions.assertThat(set.size()).isEqualTo(expected.size());
+        for (int value = -200; value < 5_100; value++)
+        {
+            Assertions.assertThat(set.contains(value)).isEqualTo(expected.contains(value));
+        }
+    }
+
+    /**
+     * Checks that removal keeps remaining values reachable and behaves the same as {@link HashSet}.
+     */
+    @Test
+    public void testRemoveSameAsHashSet()
+    {
+        Random random = new Random(7);
+        IntHashSet set = new IntHashSet();
+        Set<Integer> expected = new HashSet<>();
+        for (int i = 0; i < 20_000; i++)
+        {
+            int value = random.nextInt(1_000) - 10;
+            if (random.nextBoolean())
+            {
+                Assertions.assertThat(set.add(value)).isEqualTo(expected.add(value));
+            }
+            else
+            {
+                Assertions.assertThat(set.remove(value)).isEqualTo(expected.remove(value));
+            }
+        }
+        Assertions.assertThat(set.size()).isEqualTo(expected.size());
+        for (int value = -20; value < 1_000; value++)
+        {
+            Assertions.assertThat(set.contains(value)).isEqualTo(expected.contains(value));
+        }
+    }
+}
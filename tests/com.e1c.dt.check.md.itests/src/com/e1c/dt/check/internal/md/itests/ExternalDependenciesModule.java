@@ -21,6 +21,7 @@ import com._1c.g5.v8.dt.core.platform.IV8ProjectManager;
 import com._1c.g5.v8.dt.core.platform.IWorkspaceOrchestrator;
 import com._1c.g5.v8.dt.validation.marker.IMarkerManager;
 import com._1c.g5.wiring.AbstractServiceAwareModule;
+import com.e1c.dt.check.md.IMdReferenceIntegrityScanner;
 import com.e1c.g5.v8.dt.check.ICheckScheduler;
 import com.e1c.g5.v8.dt.check.settings.ICheckRepository;
 
@@ -51,5 +52,6 @@ public class ExternalDependenciesModule
         bind(ICheckScheduler.class).toService();
         bind(IDerivedDataManagerProvider.class).toService();
         bind(IV8ProjectManager.class).toService();
+        bind(IMdReferenceIntegrityScanner.class).toService();
     }
 }
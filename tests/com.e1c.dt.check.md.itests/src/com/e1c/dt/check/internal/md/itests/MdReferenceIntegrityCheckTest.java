@@ -12,11 +12,18 @@
  *******************************************************************************/
 package com.e1c.dt.check.internal.md.itests;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.junit.ClassRule;
 import org.junit.Test;
 
@@ -34,15 +41,21 @@ import com._1c.g5.v8.dt.metadata.mdclass.MdClassFactory;
 import com._1c.g5.v8.dt.metadata.mdclass.MdObject;
 import com._1c.g5.v8.dt.metadata.mdclass.Subsystem;
 import com._1c.g5.v8.dt.platform.version.Version;
+import com._1c.g5.v8.dt.testing.GuiceModules;
 import com._1c.g5.v8.dt.testing.TestingPlatformSupport;
 import com._1c.g5.v8.dt.validation.marker.Marker;
+import com.e1c.dt.check.internal.md.MdReferenceIntegrity;
+import com.e1c.dt.check.md.IMdReferenceIntegrityScanner;
+import com.e1c.dt.check.md.MdLostReference;
 import com.e1c.g5.v8.dt.testing.check.CheckTestBase;
+import com.google.inject.Inject;
 
 /**
  * Tests for MdReferenceIntegrity check.
  *
  * @author Alexander Tretyakevich
  */
+@GuiceModules(modules = { ExternalDependenciesModule.class })
 public class MdReferenceIntegrityCheckTest
     extends CheckTestBase
 {
@@ -76,6 +89,12 @@ public class MdReferenceIntegrityCheckTest
 
     private static final String FQN_COMMON_ATTRIBUTE = "CommonAttribute.CommonAttribute";
     private static final String FQN_CONFIGURATION = "Configuration";
+    private static final String CATALOGS_FEATURE = "catalogs";
+    private static final String DOCUMENTS_FEATURE = "documents";
+    private static final int CONFIGURATION_CHECKED_COLLECTIONS = 48;
+
+    @Inject
+    private IMdReferenceIntegrityScanner scanner;
 
     /**
      * Test the removal of the object and corresponding breaking of the integrity for supported objects
@@ -331,4 +350,228 @@ public class MdReferenceIntegrityCheckTest
         marker = getFirstMarker(CHECK_ID, object, dtProject);
         assertNull(marker);
     }
+
+    /**
+     * Test the clearance of the marker in case of the removal of the holder object which has a known issue
+     * @throws CoreException
+     */
+    @Test
+    public void testHolderRemovalClearing() throws CoreException
+    {
+        openProjectAndWaitForValidationFinish(PROJECT_NAME);
+        IDtProject dtProject = dtProjectManager.getDtProject(PROJECT_NAME);
+
+        IBmModel model = bmModelManager.getModel(dtProject);
+        // First we need to remove object to receive stale links
+        model.execute(new AbstractBmTask<Void>("RemoveObjects") //$NON-NLS-1$
+        {
+            @Override
+            public Void execute(IBmTransaction transaction, IProgressMonitor progressMonitor)
+            {
+                transaction.detachTopObject(transaction.getTopObjectByFqn(FQN_CATALOG));
+
+                return null;
+            }
+        });
+
+        waitForDD(dtProject);
+
+        CommonAttribute commonAttribute = (CommonAttribute)getTopObjectByFqn(FQN_COMMON_ATTRIBUTE, dtProject);
+        List<Long> holderIds = new ArrayList<>();
+        for (CommonAttributeContentItem contentItem : commonAttribute.getContent())
+        {
+            if (getFirstMarker(CHECK_ID, contentItem, dtProject) != null)
+            {
+                holderIds.add(((IBmObject)contentItem).bmGetId());
+            }
+        }
+        assertFalse(holderIds.isEmpty());
+
+        // Next we need to remove the holders of the stale links
+        model.execute(new AbstractBmTask<Void>("RemoveHolders") //$NON-NLS-1$
+        {
+            @Override
+            public Void execute(IBmTransaction transaction, IProgressMonitor progressMonitor)
+            {
+                CommonAttribute commonAttribute = (CommonAttribute)transaction.getTopObjectByFqn(FQN_COMMON_ATTRIBUTE);
+                commonAttribute.getContent().removeIf(item -> holderIds.contains(((IBmObject)item).bmGetId()));
+
+                return null;
+            }
+        });
+
+        waitForDD(dtProject);
+
+        // No issue of the removed holders is left behind
+        commonAttribute = (CommonAttribute)getTopObjectByFqn(FQN_COMMON_ATTRIBUTE, dtProject);
+        assertNull(getFirstNestedMarker(CHECK_ID, commonAttribute, dtProject));
+    }
+
+    /**
+     * Test that the manual removal of the stale reference from one collection of the configuration re-examines only
+     * the changed collection and keeps the issues of the other collections of the configuration
+     * @throws CoreException
+     */
+    @Test
+    public void testFeatureScopedRevalidation() throws CoreException
+    {
+        openProjectAndWaitForValidationFinish(PROJECT_NAME);
+        IDtProject dtProject = dtProjectManager.getDtProject(PROJECT_NAME);
+
+        IBmModel model = bmModelManager.getModel(dtProject);
+        // First we need to remove objects to receive stale links in two collections of the configuration
+        model.execute(new AbstractBmTask<Void>("RemoveObjects") //$NON-NLS-1$
+        {
+            @Override
+            public Void execute(IBmTransaction transaction, IProgressMonitor progressMonitor)
+            {
+                transaction.detachTopObject(transaction.getTopObjectByFqn(FQN_CATALOG));
+                transaction.detachTopObject(transaction.getTopObjectByFqn(FQN_DOCUMENT));
+
+                return null;
+            }
+        });
+
+        waitForDD(dtProject);
+
+        IBmObject object = getTopObjectByFqn(FQN_CONFIGURATION, dtProject);
+        assertNotNull(getFirstMarker(CHECK_ID, object, dtProject));
+
+        long visitedBefore = MdReferenceIntegrity.getVisitedFeatureCount();
+
+        // Next we need to remove stale link from the configuration catalogs only
+        model.execute(new AbstractBmTask<Void>("RemoveStaleReference") //$NON-NLS-1$
+        {
+            @Override
+            public Void execute(IBmTransaction transaction, IProgressMonitor progressMonitor)
+            {
+                Configuration configuration = (Configuration)transaction.getTopObjectByFqn(FQN_CONFIGURATION);
+                int idx = 0;
+                for (Catalog catalog : configuration.getCatalogs())
+                {
+                    if (catalog.eIsProxy())
+                    {
+                        configuration.getCatalogs().remove(idx);
+                        break;
+                    }
+
+                    idx++;
+                }
+
+                return null;
+            }
+        });
+
+        waitForDD(dtProject);
+
+        // Only the catalogs collection of the configuration has been re-examined
+        assertEquals(1, MdReferenceIntegrity.getVisitedFeatureCount() - visitedBefore);
+
+        // The issue of the documents collection is kept while the issue of the catalogs collection is cleared
+        object = getTopObjectByFqn(FQN_CONFIGURATION, dtProject);
+        Marker marker = getFirstMarker(CHECK_ID, object, dtProject);
+        assertNotNull(marker);
+        assertTrue(marker.getMessage().contains(DOCUMENTS_FEATURE));
+        assertFalse(marker.getMessage().contains(CATALOGS_FEATURE));
+
+        // The subsystem has not been changed, so its issue is kept as well
+        object = getTopObjectByFqn(FQN_SUBSYSTEM, dtProject);
+        assertNotNull(getFirstMarker(CHECK_ID, object, dtProject));
+    }
+
+    /**
+     * Test that the removal of an object rescans all collections of the holder, not only the collections marked by
+     * the context collectors, since the ledger cannot prove that the other collections have no new lost references
+     * @throws CoreException
+     */
+    @Test
+    public void testRemovalRescansUnmarkedCollections() throws CoreException
+    {
+        openProjectAndWaitForValidationFinish(PROJECT_NAME);
+        IDtProject dtProject = dtProjectManager.getDtProject(PROJECT_NAME);
+
+        IBmModel model = bmModelManager.getModel(dtProject);
+        // First we need to remove object to receive stale link in the configuration catalogs
+        model.execute(new AbstractBmTask<Void>("RemoveObjects") //$NON-NLS-1$
+        {
+            @Override
+            public Void execute(IBmTransaction transaction, IProgressMonitor progressMonitor)
+            {
+                transaction.detachTopObject(transaction.getTopObjectByFqn(FQN_CATALOG));
+
+                return null;
+            }
+        });
+
+        waitForDD(dtProject);
+
+        long visitedBefore = MdReferenceIntegrity.getVisitedFeatureCount();
+
+        // Next the stale link is removed from the catalogs while another object is removed in the same transaction
+        model.execute(new AbstractBmTask<Void>("RemoveStaleReferenceAndObject") //$NON-NLS-1$
+        {
+            @Override
+            public Void execute(IBmTransaction transaction, IProgressMonitor progressMonitor)
+            {
+                Configuration configuration = (Configuration)transaction.getTopObjectByFqn(FQN_CONFIGURATION);
+                int idx = 0;
+                for (Catalog catalog : configuration.getCatalogs())
+                {
+                    if (catalog.eIsProxy())
+                    {
+                        configuration.getCatalogs().remove(idx);
+                        break;
+                    }
+
+                    idx++;
+                }
+                transaction.detachTopObject(transaction.getTopObjectByFqn(FQN_DOCUMENT));
+
+                return null;
+            }
+        });
+
+        waitForDD(dtProject);
+
+        // All collections of the configuration have been re-examined rather than the marked ones only
+        assertTrue(MdReferenceIntegrity.getVisitedFeatureCount() - visitedBefore >= CONFIGURATION_CHECKED_COLLECTIONS);
+
+        IBmObject object = getTopObjectByFqn(FQN_CONFIGURATION, dtProject);
+        Marker marker = getFirstMarker(CHECK_ID, object, dtProject);
+        assertNotNull(marker);
+        assertTrue(marker.getMessage().contains(DOCUMENTS_FEATURE));
+        assertFalse(marker.getMessage().contains(CATALOGS_FEATURE));
+    }
+
+    /**
+     * Test the project-wide scan of the lost references
+     * @throws CoreException
+     */
+    @Test
+    public void testProjectWideScan() throws CoreException
+    {
+        openProjectAndWaitForValidationFinish(PROJECT_NAME);
+        IDtProject dtProject = dtProjectManager.getDtProject(PROJECT_NAME);
+
+        IBmModel model = bmModelManager.getModel(dtProject);
+
+        model.execute(new AbstractBmTask<Void>("RemoveObjects") //$NON-NLS-1$
+        {
+            @Override
+            public Void execute(IBmTransaction transaction, IProgressMonitor progressMonitor)
+            {
+                transaction.detachTopObject(transaction.getTopObjectByFqn(FQN_CATALOG));
+
+                return null;
+            }
+        });
+
+        waitForDD(dtProject);
+
+        List<MdLostReference> lostReferences = new ArrayList<>();
+        long found = scanner.scan(model, lostReferences::add, new NullProgressMonitor());
+        assertEquals(lostReferences.size(), found);
+        assertTrue(lostReferences.stream()
+            .anyMatch(reference -> CATALOGS_FEATURE.equals(reference.getFeatureName()) && reference.getIndex() >= 0));
+    }
 }